@@ -1,15 +1,21 @@
 package com.shinobi.shinobialliancemod.client;
 
+import com.shinobi.shinobialliancemod.Rank;
+import com.shinobi.shinobialliancemod.Village;
+import com.shinobi.shinobialliancemod.network.HudUpdatePayload;
 import net.fabricmc.fabric.api.client.rendering.v1.HudRenderCallback;
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.Font;
 import net.minecraft.client.gui.GuiGraphics;
-import net.minecraft.network.chat.Component;
 
 /**
  * Renders the Shinobi HUD overlay on the top-right corner of the screen.
  * Two lines:
  * - Line 1: Village: <name>  Rank: <rank>
  * - Line 2: Points: <points>  Claims: <claimed>/<limit>
+ *
+ * The server sends a keyframe, then deltas that are applied onto the cached state.
+ * Text, colors and positions are laid out once per change; frames only draw.
  */
 public class HudOverlayRenderer {
     private static String village = "";
@@ -18,6 +24,27 @@ public class HudOverlayRenderer {
     private static int claimedCount = 0;
     private static int claimLimit = 0;
     private static boolean visible = false;
+    // Delta base: updates are ignored until a keyframe arrives
+    private static boolean hasKeyframe = false;
+    private static Village villageValue = null;
+    private static Rank rankValue = Rank.GENIN;
+
+    // Cached layout: four segments per line, rebuilt only when data or screen size changes
+    private static final int SEGMENTS = 8;
+    private static final String[] segText = new String[SEGMENTS];
+    private static final int[] segColor = new int[SEGMENTS];
+    private static final int[] segX = new int[SEGMENTS];
+    private static final int[] segY = new int[SEGMENTS];
+    private static boolean layoutDirty = true;
+    private static int layoutWidth = -1;
+    private static int layoutHeight = -1;
+
+    // Frame-time counter
+    private static final boolean PROFILE = Boolean.getBoolean("shinobi.hud.profile");
+    private static final int PROFILE_FRAMES = 1200;
+    private static long frames = 0;
+    private static long frameNanos = 0;
+    private static long layouts = 0;
     // Colors (ARGB) per spec
     private static final int COLOR_HEADER = 0xFFFF9AA5;  // header pink (#ff9aa5)
     private static final int COLOR_RESULT = 0xFF7CFC00;  // lawn green for result values
@@ -51,12 +78,43 @@ public class HudOverlayRenderer {
         visible = show;
     }
 
+    /**
+     * Apply a keyframe or delta from the server onto the cached state.
+     */
+    public static void applyUpdate(HudUpdatePayload update) {
+        if (update.isKeyframe()) {
+            hasKeyframe = true;
+        } else if (!hasKeyframe || update.isEmpty()) {
+            return;
+        }
+        if (update.has(HudUpdatePayload.VILLAGE)) villageValue = update.villageValue();
+        if (update.has(HudUpdatePayload.RANK)) rankValue = update.rankValue();
+        updateData(
+            villageValue != null ? villageValue.getDisplayName() : "Unassigned",
+            villageValue != null ? rankValue.getDisplayName(villageValue) : "",
+            update.has(HudUpdatePayload.POINTS) ? update.points() : points,
+            update.has(HudUpdatePayload.CLAIMED) ? update.claimed() : claimedCount,
+            update.has(HudUpdatePayload.LIMIT) ? update.limit() : claimLimit
+        );
+    }
+
+    /**
+     * Forget the delta base on disconnect; the next server sends a fresh keyframe.
+     */
+    public static void reset() {
+        hasKeyframe = false;
+        visible = false;
+        villageValue = null;
+        rankValue = Rank.GENIN;
+    }
+
     public static void updateData(String villageVal, String rankVal, int pointsVal, int claimedVal, int limitVal) {
         village = villageVal;
         rank = rankVal;
         points = pointsVal;
         claimedCount = claimedVal;
         claimLimit = limitVal;
+        layoutDirty = true;
     }
 
     private static void render(GuiGraphics graphics, net.minecraft.client.DeltaTracker deltaTracker) {
@@ -65,46 +123,81 @@ public class HudOverlayRenderer {
         Minecraft mc = Minecraft.getInstance();
         if (mc.options.hideGui || mc.player == null) return;
 
+        long start = PROFILE ? System.nanoTime() : 0L;
         int screenWidth = mc.getWindow().getGuiScaledWidth();
         int screenHeight = mc.getWindow().getGuiScaledHeight();
+        if (layoutDirty || screenWidth != layoutWidth || screenHeight != layoutHeight) {
+            layout(mc.font, screenWidth, screenHeight);
+        }
+
+        for (int i = 0; i < SEGMENTS; i++) {
+            graphics.drawString(mc.font, segText[i], segX[i], segY[i], segColor[i], true);
+        }
+        if (PROFILE) recordFrame(System.nanoTime() - start);
+    }
 
+    /**
+     * Recompute segment text, colors and positions. Runs only after updateData or a
+     * GUI scale / window size change, never per frame.
+     */
+    private static void layout(Font font, int screenWidth, int screenHeight) {
         // Position: middle-right side with 10px padding from edge
         int x = screenWidth - 10;
         int y = (screenHeight / 2) - 10; // Center vertically
         int lineHeight = 10;
 
-        // Line 1 rendered in segments for color control
-        Component lblVillage = Component.literal("Village: ");
-        Component valVillage = Component.literal(village);
-        Component lblRank = Component.literal("  Rank: ");
-        Component valRank = Component.literal(rank);
-
-        int line1Width = mc.font.width(lblVillage) + mc.font.width(valVillage)
-            + mc.font.width(lblRank) + mc.font.width(valRank);
-        int cx = x - line1Width;
-        graphics.drawString(mc.font, lblVillage, cx, y, COLOR_HEADER, true);
-        cx += mc.font.width(lblVillage);
-        graphics.drawString(mc.font, valVillage, cx, y, colorForVillage(village), true);
-        cx += mc.font.width(valVillage);
-        graphics.drawString(mc.font, lblRank, cx, y, COLOR_HEADER, true);
-        cx += mc.font.width(lblRank);
-        graphics.drawString(mc.font, valRank, cx, y, COLOR_RESULT, true);
-
-        // Line 2: Points and Claims with colors
-        Component lblPoints = Component.literal("Points: ");
-        Component valPoints = Component.literal(Integer.toString(points));
-        Component lblClaims = Component.literal("  Claims: ");
-        Component valClaims = Component.literal(claimedCount + "/" + claimLimit);
-
-        int line2Width = mc.font.width(lblPoints) + mc.font.width(valPoints)
-            + mc.font.width(lblClaims) + mc.font.width(valClaims);
-        int cx2 = x - line2Width;
-        graphics.drawString(mc.font, lblPoints, cx2, y + lineHeight, COLOR_HEADER, true);
-        cx2 += mc.font.width(lblPoints);
-        graphics.drawString(mc.font, valPoints, cx2, y + lineHeight, COLOR_RESULT, true);
-        cx2 += mc.font.width(valPoints);
-        graphics.drawString(mc.font, lblClaims, cx2, y + lineHeight, COLOR_HEADER, true);
-        cx2 += mc.font.width(lblClaims);
-        graphics.drawString(mc.font, valClaims, cx2, y + lineHeight, COLOR_RESULT, true);
+        // Line 1: Village and Rank
+        segText[0] = "Village: ";
+        segColor[0] = COLOR_HEADER;
+        segText[1] = village;
+        segColor[1] = colorForVillage(village);
+        segText[2] = "  Rank: ";
+        segColor[2] = COLOR_HEADER;
+        segText[3] = rank;
+        segColor[3] = COLOR_RESULT;
+
+        // Line 2: Points and Claims
+        segText[4] = "Points: ";
+        segColor[4] = COLOR_HEADER;
+        segText[5] = Integer.toString(points);
+        segColor[5] = COLOR_RESULT;
+        segText[6] = "  Claims: ";
+        segColor[6] = COLOR_HEADER;
+        segText[7] = claimedCount + "/" + claimLimit;
+        segColor[7] = COLOR_RESULT;
+
+        // Each line is right-aligned to x
+        for (int line = 0; line < 2; line++) {
+            int first = line * 4;
+            int width = 0;
+            for (int i = first; i < first + 4; i++) width += font.width(segText[i]);
+            int cx = x - width;
+            for (int i = first; i < first + 4; i++) {
+                segX[i] = cx;
+                segY[i] = y + line * lineHeight;
+                cx += font.width(segText[i]);
+            }
+        }
+
+        layoutWidth = screenWidth;
+        layoutHeight = screenHeight;
+        layoutDirty = false;
+        if (PROFILE) layouts++;
+    }
+
+    /**
+     * Frame-time counter for the overlay, only with -Dshinobi.hud.profile=true: the
+     * average cost per frame is logged every PROFILE_FRAMES frames.
+     */
+    private static void recordFrame(long nanos) {
+        frames++;
+        frameNanos += nanos;
+        if (frames >= PROFILE_FRAMES) {
+            System.out.println("[Client] HUD render: " + (frameNanos / frames) + " ns/frame avg over " + frames
+                + " frames, " + layouts + " layouts");
+            frames = 0;
+            frameNanos = 0;
+            layouts = 0;
+        }
     }
 }
@@ -14,20 +14,15 @@ public class ShinobiAllianceModClient implements ClientModInitializer {
         ClientPlayNetworking.registerGlobalReceiver(
             com.shinobi.shinobialliancemod.network.HudUpdatePayload.TYPE,
             (payload, context) -> {
-                System.out.println("[Client] Received HUD data: " + payload.village() + ", " + payload.rank() + ", pts=" + payload.points() + ", claims=" + payload.claimed() + "/" + payload.limit());
-                context.client().execute(() -> {
-                    HudOverlayRenderer.updateData(
-                        payload.village(),
-                        payload.rank(),
-                        payload.points(),
-                        payload.claimed(),
-                        payload.limit()
-                    );
-                    System.out.println("[Client] HUD data updated");
-                });
+                context.client().execute(() -> HudOverlayRenderer.applyUpdate(payload));
             }
         );
 
+        // Drop the delta base when leaving a server
+        net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents.DISCONNECT.register(
+            (handler, client) -> client.execute(HudOverlayRenderer::reset)
+        );
+
         // Listen for HUD visibility packets
         ClientPlayNetworking.registerGlobalReceiver(
             com.shinobi.shinobialliancemod.network.HudVisibilityPayload.TYPE,
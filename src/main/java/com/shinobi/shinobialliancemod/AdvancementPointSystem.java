@@ -1,9 +1,16 @@
 package com.shinobi.shinobialliancemod;
 
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import net.minecraft.advancements.AdvancementHolder;
 import net.minecraft.resources.Identifier;
+import net.minecraft.server.ServerAdvancementManager;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -17,10 +24,22 @@ import java.util.Map;
  * Tier 4 (Extreme) = 5 points - Completionist goals, dangerous tasks, full collections
  * 
  * Total Max Points: Calculated dynamically
+ *
+ * The table below is declared by Identifier and resolved once against the loaded
+ * ServerAdvancementManager (server start and datapack reload) into a dense slot
+ * index, so per-advancement lookups are a reference-hash probe plus an int[] read.
  */
 public class AdvancementPointSystem {
     
-    private static final Map<String, Integer> ADVANCEMENT_POINTS = new HashMap<>();
+    // Declared point table, in declaration order
+    private static final Map<Identifier, Integer> ADVANCEMENT_POINTS = new LinkedHashMap<>();
+
+    // Resolved dense index: holder -> slot, with parallel per-slot arrays
+    private static final Object2IntOpenHashMap<Identifier> ID_POINTS = new Object2IntOpenHashMap<>();
+    private static Reference2IntOpenHashMap<AdvancementHolder> holderSlots = newSlotMap(0);
+    private static AdvancementHolder[] slotHolders = new AdvancementHolder[0];
+    private static int[] slotPoints = new int[0];
+    private static int maxPoints = 0;
     
     static {
         // ============================================================
@@ -206,7 +225,13 @@ public class AdvancementPointSystem {
         addTier4("husbandry/obtain_netherite_hoe");    // Serious Dedication
         
         // Special override for "How Did We Get Here?" to be worth 10 points
-        ADVANCEMENT_POINTS.put("minecraft:nether/all_effects", 10);
+        ADVANCEMENT_POINTS.put(Identifier.withDefaultNamespace("nether/all_effects"), 10);
+
+        for (Map.Entry<Identifier, Integer> entry : ADVANCEMENT_POINTS.entrySet()) {
+            ID_POINTS.put(entry.getKey(), entry.getValue().intValue());
+            maxPoints += entry.getValue();
+        }
+        ID_POINTS.defaultReturnValue(0);
         
         System.out.println("[CHECK] Total tracked advancements: " + ADVANCEMENT_POINTS.size());
         System.out.println("[AdvancementPointSystem] Total max points: " + getMaxPoints());
@@ -220,30 +245,75 @@ public class AdvancementPointSystem {
      * Tier 1: Easy - Basic gameplay, early-game tasks (1 point)
      */
     private static void addTier1(String advancementId) {
-        ADVANCEMENT_POINTS.put("minecraft:" + advancementId, 1);
+        ADVANCEMENT_POINTS.put(Identifier.withDefaultNamespace(advancementId), 1);
     }
     
     /**
      * Tier 2: Normal - Mid-game progression, exploration (2 points)
      */
     private static void addTier2(String advancementId) {
-        ADVANCEMENT_POINTS.put("minecraft:" + advancementId, 2);
+        ADVANCEMENT_POINTS.put(Identifier.withDefaultNamespace(advancementId), 2);
     }
     
     /**
      * Tier 3: Hard - Challenging tasks, boss fights, rare items (3 points)
      */
     private static void addTier3(String advancementId) {
-        ADVANCEMENT_POINTS.put("minecraft:" + advancementId, 3);
+        ADVANCEMENT_POINTS.put(Identifier.withDefaultNamespace(advancementId), 3);
     }
     
     /**
      * Tier 4: Extreme - Completionist goals, dangerous tasks, full collections (5 points)
      */
     private static void addTier4(String advancementId) {
-        ADVANCEMENT_POINTS.put("minecraft:" + advancementId, 5);
+        ADVANCEMENT_POINTS.put(Identifier.withDefaultNamespace(advancementId), 5);
     }
     
+    // ============================================================
+    // RESOLUTION
+    // ============================================================
+
+    /**
+     * Resolve the point table against the loaded advancements.
+     * Called on server start and after datapack reloads; reports IDs that no longer exist.
+     */
+    public static void resolve(ServerAdvancementManager manager) {
+        Reference2IntOpenHashMap<AdvancementHolder> slots = newSlotMap(ADVANCEMENT_POINTS.size());
+        List<AdvancementHolder> holders = new ArrayList<>(ADVANCEMENT_POINTS.size());
+        int[] points = new int[ADVANCEMENT_POINTS.size()];
+        int max = 0;
+        List<Identifier> missing = new ArrayList<>();
+
+        for (Map.Entry<Identifier, Integer> entry : ADVANCEMENT_POINTS.entrySet()) {
+            AdvancementHolder holder = manager.get(entry.getKey());
+            if (holder == null) {
+                missing.add(entry.getKey());
+                continue;
+            }
+            int slot = holders.size();
+            holders.add(holder);
+            points[slot] = entry.getValue();
+            slots.put(holder, slot);
+            max += points[slot];
+        }
+
+        holderSlots = slots;
+        slotHolders = holders.toArray(new AdvancementHolder[0]);
+        slotPoints = Arrays.copyOf(points, slotHolders.length);
+        maxPoints = max;
+
+        System.out.println("[AdvancementPointSystem] Resolved " + slotHolders.length + "/" + ADVANCEMENT_POINTS.size() + " tracked advancements, max points: " + maxPoints);
+        for (Identifier id : missing) {
+            System.out.println("[AdvancementPointSystem] ⚠️ Unknown or removed advancement in point table: " + id);
+        }
+    }
+
+    private static Reference2IntOpenHashMap<AdvancementHolder> newSlotMap(int expected) {
+        Reference2IntOpenHashMap<AdvancementHolder> map = new Reference2IntOpenHashMap<>(expected);
+        map.defaultReturnValue(-1); // -1 = not a tracked holder
+        return map;
+    }
+
     // ============================================================
     // PUBLIC API
     // ============================================================
@@ -253,18 +323,21 @@ public class AdvancementPointSystem {
      * Returns 0 if advancement is not tracked.
      */
     public static int getPoints(AdvancementHolder advancement) {
-        return getPoints(advancement.id());
+        int slot = holderSlots.getInt(advancement);
+        if (slot >= 0) return slotPoints[slot];
+        // Not resolved yet (or a holder from before a reload): fall back to the ID table
+        return ID_POINTS.getInt(advancement.id());
     }
     
     public static int getPoints(Identifier advancementId) {
-        return ADVANCEMENT_POINTS.getOrDefault(advancementId.toString(), 0);
+        return ID_POINTS.getInt(advancementId);
     }
     
     /**
      * Check if an advancement is tracked in the point system.
      */
     public static boolean isTracked(AdvancementHolder advancement) {
-        return ADVANCEMENT_POINTS.containsKey(advancement.id().toString());
+        return holderSlots.getInt(advancement) >= 0 || ID_POINTS.containsKey(advancement.id());
     }
     
     /**
@@ -275,16 +348,35 @@ public class AdvancementPointSystem {
     }
     
     /**
-     * Get the maximum possible points (sum of all advancement points).
+     * Get the maximum possible points (sum of all resolved advancement points).
      */
     public static int getMaxPoints() {
-        return ADVANCEMENT_POINTS.values().stream().mapToInt(Integer::intValue).sum();
+        return maxPoints;
+    }
+
+    /**
+     * Number of resolved slots; valid slot indices are 0..getSlotCount()-1.
+     */
+    public static int getSlotCount() {
+        return slotHolders.length;
+    }
+
+    public static AdvancementHolder getSlotHolder(int slot) {
+        return slotHolders[slot];
+    }
+
+    public static int getSlotPoints(int slot) {
+        return slotPoints[slot];
     }
     
     /**
      * Get all tracked advancement IDs and their point values.
      */
     public static Map<String, Integer> getAllAdvancements() {
-        return new HashMap<>(ADVANCEMENT_POINTS);
+        Map<String, Integer> copy = new HashMap<>();
+        for (Map.Entry<Identifier, Integer> entry : ADVANCEMENT_POINTS.entrySet()) {
+            copy.put(entry.getKey().toString(), entry.getValue());
+        }
+        return copy;
     }
 }
@@ -2,6 +2,9 @@ package com.shinobi.shinobialliancemod;
 
 import net.minecraft.ChatFormatting;
 import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.MutableComponent;
+import net.minecraft.network.chat.Style;
+import net.minecraft.network.chat.TextColor;
 import net.minecraft.server.level.ServerBossEvent;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.BossEvent;
@@ -15,6 +18,8 @@ import java.util.UUID;
  * - Title uses full hex color text segments
  * - Bar color selectable (uses vanilla BossEvent.Color)
  * - Progress toggleable
+ * - Title prefixes (header through the points label) are built once per
+ *   village/rank pair and shared; an update only adds the numeric segments
  */
 public final class BossHudManager {
     private static final Map<UUID, ServerBossEvent> bars = new HashMap<>();
@@ -22,8 +27,66 @@ public final class BossHudManager {
     private static BossEvent.BossBarColor BAR_COLOR = BossEvent.BossBarColor.WHITE; // white container with progress fill
     private static BossEvent.BossBarOverlay BAR_OVERLAY = BossEvent.BossBarOverlay.PROGRESS; // solid progress style
 
+    // Shared immutable styles
+    private static final Style HEADER = Style.EMPTY.withColor(TextColor.fromRgb(0xFF9AA5)); // header pink
+    private static final Style RESULT = Style.EMPTY.withColor(TextColor.fromRgb(0x7CFC00)); // lawn green
+    private static final Component SEPARATOR = Component.literal("  ");
+    private static final Component CLAIMS_LABEL = Component.literal("Claims: ").setStyle(HEADER);
+
+    // [village ordinal + 1, 0 = unassigned][rank ordinal]; never mutated once built
+    private static final Component[][] PREFIXES = new Component[Village.values().length + 1][Rank.values().length];
+
     private BossHudManager() {}
 
+    /**
+     * Boss bar title for a HUD state. village null means unassigned.
+     */
+    public static Component title(Village village, Rank rank, int points, int claimed, int limit) {
+        return Component.empty()
+            .append(prefix(village, rank))
+            .append(Component.literal(Integer.toString(points)).setStyle(RESULT))
+            .append(SEPARATOR)
+            .append(CLAIMS_LABEL)
+            .append(Component.literal(claimed + "/" + limit).setStyle(RESULT));
+    }
+
+    private static Component prefix(Village village, Rank rank) {
+        int v = village != null ? village.ordinal() + 1 : 0;
+        Component cached = PREFIXES[v][rank.ordinal()];
+        if (cached == null) {
+            cached = buildPrefix(village, rank);
+            PREFIXES[v][rank.ordinal()] = cached;
+        }
+        return cached;
+    }
+
+    private static Component buildPrefix(Village village, Rank rank) {
+        String villageName = village != null ? village.getDisplayName() : "Unassigned";
+        String rankName = village != null ? rank.getDisplayName(village) : "";
+        MutableComponent prefix = Component.empty()
+            .append(Component.literal("Shinobi HUD").setStyle(RESULT.withUnderlined(true)))
+            .append(SEPARATOR)
+            .append(Component.literal("Village: ").setStyle(HEADER))
+            .append(Component.literal(villageName).setStyle(Style.EMPTY.withColor(TextColor.fromRgb(rgbForVillage(village)))))
+            .append(SEPARATOR)
+            .append(Component.literal("Rank: ").setStyle(HEADER))
+            .append(Component.literal(rankName).setStyle(RESULT))
+            .append(SEPARATOR)
+            .append(Component.literal("Points: ").setStyle(HEADER));
+        return prefix;
+    }
+
+    private static int rgbForVillage(Village village) {
+        if (village == null) return 0xFFFFFF;
+        return switch (village) {
+            case LEAF -> 0xFF5555;   // red
+            case SAND -> 0xFFFF55;   // yellow
+            case MIST -> 0x5555FF;   // dark blue
+            case STONE -> 0x555555;  // dark gray
+            case CLOUD -> 0xFFFFFF;  // white
+        };
+    }
+
     public static void ensure(ServerPlayer player) {
         bars.computeIfAbsent(player.getUUID(), uuid -> {
             ServerBossEvent event = new ServerBossEvent(Component.literal("Shinobi HUD"), BAR_COLOR, BAR_OVERLAY);
@@ -35,17 +98,23 @@ public final class BossHudManager {
         });
     }
 
-    public static void showOrUpdate(ServerPlayer player, Component title, int points, int maxPoints, boolean showProgress) {
+    /**
+     * Update the player's bar. Returns true when the progress changed (the boss event
+     * only sends a progress update then).
+     */
+    public static boolean showOrUpdate(ServerPlayer player, Component title, int points, int maxPoints, boolean showProgress) {
         ensure(player);
         ServerBossEvent event = bars.get(player.getUUID());
-        if (event == null) return;
+        if (event == null) return false;
         event.setName(title);
         float progress = 0f;
         if (showProgress && maxPoints > 0) {
             progress = Math.max(0f, Math.min(1f, (float) points / (float) maxPoints));
         }
+        boolean progressChanged = event.getProgress() != progress;
         event.setProgress(progress);
         event.setVisible(true);
+        return progressChanged;
     }
 
     public static void hide(ServerPlayer player) {
@@ -0,0 +1,234 @@
+package com.shinobi.shinobialliancemod;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.resources.Identifier;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import xaero.pac.common.claims.player.api.IPlayerChunkClaimAPI;
+import xaero.pac.common.claims.tracker.api.IClaimsManagerListenerAPI;
+import xaero.pac.common.server.api.OpenPACServerAPI;
+import xaero.pac.common.server.claims.api.IServerClaimsManagerAPI;
+import xaero.pac.common.server.claims.player.api.IServerPlayerClaimInfoAPI;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Claimed-chunk counts per player, kept in memory so the HUD and rank code read an
+ * int with no I/O.
+ *
+ * A player's count is seeded once from OPAC's claims manager and then kept current
+ * by a claims tracker listener. The event does not carry the previous owner, so the
+ * chunks of every tracked player are indexed when they are seeded; a chunk event
+ * then re-reads only the previous and the new owner (in-memory OPAC lookups). Only
+ * region/dimension-wide changes, or an index that could not be built, fall back to
+ * refreshing every tracked count. When the OPAC API is not available, counts come
+ * from OpacNbtReader, which watches the claim files off-thread.
+ *
+ * Server thread only.
+ */
+public final class ClaimCountService {
+    private static final Object2IntOpenHashMap<UUID> COUNTS = new Object2IntOpenHashMap<>();
+    // Chunk -> owner, for chunks owned by tracked players
+    private static final Map<ChunkKey, UUID> OWNERS = new HashMap<>();
+    private static final Map<UUID, Set<ChunkKey>> CHUNKS = new HashMap<>(); // reverse of OWNERS
+    private static boolean ownersComplete = true; // false once a player's chunks could not be listed
+    private static MinecraftServer serverRef;
+    private static boolean listening = false;
+
+    private record ChunkKey(Identifier dimension, int x, int z) {}
+
+    static {
+        COUNTS.defaultReturnValue(-1);
+    }
+
+    private ClaimCountService() {}
+
+    /**
+     * Hook OPAC's claims tracker once the server is up. Called once from mod init.
+     */
+    public static void register() {
+        net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents.SERVER_STARTED.register(server -> {
+            serverRef = server;
+            listening = false;
+            try {
+                IServerClaimsManagerAPI claims = claimsManager(server);
+                if (claims != null) {
+                    claims.getTracker().register(new Listener());
+                    listening = true;
+                    System.out.println("[ShinobiAllianceMod] ✅ Tracking claim counts via OPAC claim events");
+                }
+            } catch (Throwable t) {
+                System.out.println("[ShinobiAllianceMod] ⚠️ OPAC claims tracker unavailable, using NBT fallback: " + t.getMessage());
+            }
+            if (!listening) OpacNbtReader.start(server);
+        });
+        net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents.SERVER_STOPPING.register(server -> OpacNbtReader.stop());
+        net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            COUNTS.clear();
+            OWNERS.clear();
+            CHUNKS.clear();
+            ownersComplete = true;
+            serverRef = null;
+            listening = false;
+        });
+        net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> forget(handler.getPlayer().getUUID()));
+    }
+
+    /**
+     * Number of chunks the player has claimed. Seeds the count on first call.
+     */
+    public static int getClaimedChunks(ServerPlayer player) {
+        UUID uuid = player.getUUID();
+        int cached = COUNTS.getInt(uuid);
+        return cached >= 0 ? cached : seed(player);
+    }
+
+    public static void forget(UUID playerUUID) {
+        Set<ChunkKey> owned = CHUNKS.remove(playerUUID);
+        if (owned != null) {
+            for (ChunkKey key : owned) OWNERS.remove(key);
+        }
+        COUNTS.removeInt(playerUUID);
+        OpacNbtReader.forget(playerUUID);
+    }
+
+    public static int getTrackedPlayers() {
+        return COUNTS.size();
+    }
+
+    public static boolean isListening() {
+        return listening;
+    }
+
+    private static int seed(ServerPlayer player) {
+        UUID uuid = player.getUUID();
+        MinecraftServer server = player.level().getServer();
+        int fromApi = server != null ? readFromApi(server, uuid) : -1;
+        if (fromApi >= 0) {
+            COUNTS.put(uuid, fromApi);
+            indexChunks(server, uuid);
+            publish(uuid, fromApi);
+            return fromApi;
+        }
+
+        // Without the OPAC API: the file watcher's cached value (not stored here, it stays current)
+        return OpacNbtReader.getUsedClaims(player);
+    }
+
+    private static IServerClaimsManagerAPI claimsManager(MinecraftServer server) {
+        OpenPACServerAPI api = OpenPACServerAPI.get(server);
+        return api != null ? api.getServerClaimsManager() : null;
+    }
+
+    /**
+     * OPAC keeps a running claim count per player; returns -1 if unavailable.
+     */
+    private static int readFromApi(MinecraftServer server, UUID uuid) {
+        try {
+            IServerClaimsManagerAPI claims = claimsManager(server);
+            if (claims == null) return -1;
+            IServerPlayerClaimInfoAPI info = claims.getPlayerInfo(uuid);
+            return info != null ? info.getClaimCount() : 0;
+        } catch (Throwable t) {
+            return -1;
+        }
+    }
+
+    /**
+     * Record every chunk the player owns, so later events know the previous owner.
+     */
+    private static void indexChunks(MinecraftServer server, UUID uuid) {
+        try {
+            IServerClaimsManagerAPI claims = claimsManager(server);
+            IServerPlayerClaimInfoAPI info = claims != null ? claims.getPlayerInfo(uuid) : null;
+            if (info == null) return;
+            info.getStream().forEach(dimension -> dimension.getValue().getStream().forEach(posList ->
+                posList.getStream().forEach(pos -> own(new ChunkKey(dimension.getKey(), pos.x, pos.z), uuid))));
+        } catch (Throwable t) {
+            ownersComplete = false;
+        }
+    }
+
+    /** Index a chunk under its owner; returns the previous indexed owner. */
+    private static UUID own(ChunkKey key, UUID owner) {
+        UUID previous = OWNERS.put(key, owner);
+        if (previous != null && !previous.equals(owner)) removeChunk(previous, key);
+        CHUNKS.computeIfAbsent(owner, k -> new HashSet<>()).add(key);
+        return previous;
+    }
+
+    private static UUID disown(ChunkKey key) {
+        UUID previous = OWNERS.remove(key);
+        if (previous != null) removeChunk(previous, key);
+        return previous;
+    }
+
+    private static void removeChunk(UUID owner, ChunkKey key) {
+        Set<ChunkKey> owned = CHUNKS.get(owner);
+        if (owned != null && owned.remove(key) && owned.isEmpty()) CHUNKS.remove(owner);
+    }
+
+    private static void reindexAll() {
+        OWNERS.clear();
+        CHUNKS.clear();
+        ownersComplete = true;
+        if (serverRef == null) return;
+        for (UUID uuid : COUNTS.keySet()) {
+            indexChunks(serverRef, uuid);
+        }
+    }
+
+    private static void refresh(UUID uuid) {
+        if (serverRef == null || !COUNTS.containsKey(uuid)) return;
+        int count = readFromApi(serverRef, uuid);
+        if (count >= 0 && COUNTS.put(uuid, count) != count) publish(uuid, count);
+    }
+
+    /**
+     * Push a changed count into the player's profile, which marks their HUD dirty.
+     */
+    private static void publish(UUID uuid, int count) {
+        ShinobiProfile profile = ShinobiProfileRegistry.getIfLoaded(uuid);
+        if (profile != null) profile.setClaimedChunks(count);
+    }
+
+    private static void refreshAll() {
+        if (serverRef == null) return;
+        for (UUID uuid : COUNTS.keySet().toArray(new UUID[0])) {
+            refresh(uuid);
+        }
+    }
+
+    private static final class Listener implements IClaimsManagerListenerAPI {
+        @Override
+        public void onWholeRegionChange(Identifier dimension, int regionX, int regionZ) {
+            refreshAll();
+            reindexAll();
+        }
+
+        @Override
+        public void onChunkChange(Identifier dimension, int chunkX, int chunkZ, IPlayerChunkClaimAPI claim) {
+            ChunkKey key = new ChunkKey(dimension, chunkX, chunkZ);
+            UUID owner = claim != null ? claim.getPlayerId() : null;
+            UUID previous = owner != null && COUNTS.containsKey(owner) ? own(key, owner) : disown(key);
+            if (previous == null && !ownersComplete) {
+                // Previous owner unknown: it may be any tracked player
+                refreshAll();
+                return;
+            }
+            // Not in the index means the chunk was unowned or owned by an untracked player
+            if (previous != null) refresh(previous);
+            if (owner != null && !owner.equals(previous)) refresh(owner);
+        }
+
+        @Override
+        public void onDimensionChange(Identifier dimension) {
+            refreshAll();
+            reindexAll();
+        }
+    }
+}
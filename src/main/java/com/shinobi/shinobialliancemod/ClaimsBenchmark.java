@@ -0,0 +1,133 @@
+package com.shinobi.shinobialliancemod;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * /shinobi benchmark claims: OpacNbtReader's streaming claim counter vs the previous
+ * tree-building reader.
+ */
+final class ClaimsBenchmark {
+    private ClaimsBenchmark() {}
+
+    /**
+     * Previous tree-building reader (overworld, nether and end only), the baseline
+     * OpacNbtReader.countClaims is compared against.
+     */
+    private static int countClaimsTree(Path playerFile) {
+        if (!Files.exists(playerFile)) return 0;
+
+        int total = 0;
+        try (InputStream in = Files.newInputStream(playerFile)) {
+            // Detect gzip header (0x1f 0x8b); fallback to uncompressed read
+            byte[] header = in.readNBytes(2);
+            CompoundTag root;
+            if (header.length == 2 && (header[0] & 0xFF) == 0x1F && (header[1] & 0xFF) == 0x8B) {
+                // Re-open stream for compressed read
+                try (InputStream gz = Files.newInputStream(playerFile)) {
+                    root = NbtIo.readCompressed(gz, NbtAccounter.unlimitedHeap());
+                }
+            } else {
+                // Use uncompressed NBT reader (DataInput required)
+                try (InputStream plain = Files.newInputStream(playerFile)) {
+                    var dataIn = new java.io.DataInputStream(plain);
+                    root = NbtIo.read(dataIn, NbtAccounter.unlimitedHeap());
+                }
+            }
+            if (root == null) return 0;
+
+            CompoundTag dimensions = root.getCompound("dimensions").orElse(null);
+            if (dimensions == null) return 0;
+
+            String[] dimKeys = new String[] {
+                "minecraft:overworld", "minecraft:the_nether", "minecraft:the_end"
+            };
+
+            for (String dimKey : dimKeys) {
+                CompoundTag dim = dimensions.getCompound(dimKey).orElse(null);
+                if (dim == null) continue;
+                var claimsOpt = dim.getList("claims");
+                if (claimsOpt.isEmpty()) continue;
+                ListTag claims = claimsOpt.get();
+                for (int i = 0; i < claims.size(); i++) {
+                    CompoundTag claim = claims.getCompound(i).orElse(null);
+                    if (claim == null) continue;
+                    var positionsOpt = claim.getList("positions");
+                    if (positionsOpt.isEmpty()) continue;
+                    ListTag positions = positionsOpt.get();
+                    total += positions.size();
+                }
+            }
+
+            return total;
+        } catch (Throwable e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Write a synthetic claims file with the given number of positions (spread over
+     * three vanilla and two modded dimensions) and time both readers on it.
+     * Runs off the server thread; used by /shinobi benchmark claims.
+     */
+    static String run(int positions) throws IOException {
+        String[] dims = {"minecraft:overworld", "minecraft:the_nether", "minecraft:the_end", "modded:mining", "modded:skylands"};
+        CompoundTag dimensions = new CompoundTag();
+        int perClaim = 64;
+        int written = 0;
+        for (int d = 0; d < dims.length; d++) {
+            ListTag claims = new ListTag();
+            int share = positions / dims.length + (d < positions % dims.length ? 1 : 0);
+            for (int c = 0; c < share; c += perClaim) {
+                CompoundTag claim = new CompoundTag();
+                claim.putInt("subConfigIndex", -1);
+                claim.putBoolean("forceloadable", false);
+                ListTag list = new ListTag();
+                for (int i = c; i < Math.min(share, c + perClaim); i++) {
+                    CompoundTag pos = new CompoundTag();
+                    pos.putInt("x", i);
+                    pos.putInt("z", -i);
+                    list.add(pos);
+                    written++;
+                }
+                claim.put("positions", list);
+                claims.add(claim);
+            }
+            CompoundTag dim = new CompoundTag();
+            dim.put("claims", claims);
+            dimensions.put(dims[d], dim);
+        }
+        CompoundTag root = new CompoundTag();
+        root.put("dimensions", dimensions);
+
+        Path file = Files.createTempFile("shinobi-claims-bench", ".nbt");
+        try {
+            NbtIo.writeCompressed(root, file);
+            long bytes = Files.size(file);
+            int streamed = 0;
+            int tree = 0;
+            for (int i = 0; i < 5; i++) { // warm up
+                streamed = OpacNbtReader.countClaims(file);
+                tree = countClaimsTree(file);
+            }
+            int rounds = 20;
+            long t0 = System.nanoTime();
+            for (int i = 0; i < rounds; i++) streamed = OpacNbtReader.countClaims(file);
+            long t1 = System.nanoTime();
+            for (int i = 0; i < rounds; i++) tree = countClaimsTree(file);
+            long t2 = System.nanoTime();
+            return "positions=" + written + ", file=" + (bytes / 1024) + "KiB"
+                + " | stream: " + ((t1 - t0) / rounds / 1000) + "us, count=" + streamed
+                + " | tree: " + ((t2 - t1) / rounds / 1000) + "us, count=" + tree + " (vanilla dims only)";
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.shinobi.shinobialliancemod;
+
+import com.shinobi.shinobialliancemod.network.HudUpdatePayload;
+import com.shinobi.shinobialliancemod.network.HudVisibilityPayload;
+import io.netty.buffer.Unpooled;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.ComponentSerialization;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Picks the HUD transport per player.
+ *
+ * Clients running the mod (they registered the hud_update channel, checked with
+ * ServerPlayNetworking.canSend) get a HudUpdatePayload and draw the overlay
+ * themselves: a keyframe when the HUD is shown, then only the changed fields.
+ * Vanilla clients keep the boss bar, whose title is a styled Component that is
+ * resent in full on every update.
+ *
+ * One update in METRIC_SAMPLE per path is re-encoded to measure its size, so
+ * /shinobi stats can compare average bytes per update on both paths without
+ * serializing every update twice. Server thread only.
+ */
+public final class HudChannel {
+    // Boss event packet overhead besides the title: bar UUID (16) + operation id (1),
+    // plus the separate progress update (UUID 16 + operation 1 + float 4)
+    private static final int BOSS_NAME_OVERHEAD = 17;
+    private static final int BOSS_PROGRESS_BYTES = 21;
+    private static final int METRIC_SAMPLE = 32;
+
+    // Last state sent to each modded client; absent means the next update is a keyframe
+    private static final Map<UUID, HudUpdatePayload> lastSent = new HashMap<>();
+
+    // Metrics; bytes are summed over the sampled updates only
+    private static long payloadUpdates = 0;
+    private static long payloadSamples = 0;
+    private static long payloadBytes = 0;
+    private static long bossUpdates = 0;
+    private static long bossSamples = 0;
+    private static long bossBytes = 0;
+
+    private HudChannel() {}
+
+    /** True when the player's client can receive the HUD payloads. */
+    public static boolean isModded(ServerPlayer player) {
+        return ServerPlayNetworking.canSend(player, HudUpdatePayload.TYPE);
+    }
+
+    public static void show(ServerPlayer player) {
+        lastSent.remove(player.getUUID());
+        if (isModded(player)) {
+            ServerPlayNetworking.send(player, new HudVisibilityPayload(true));
+        } else {
+            BossHudManager.ensure(player);
+        }
+    }
+
+    public static void hide(ServerPlayer player) {
+        lastSent.remove(player.getUUID());
+        if (isModded(player)) {
+            ServerPlayNetworking.send(player, new HudVisibilityPayload(false));
+        }
+        BossHudManager.hide(player); // no-op when no bar exists
+    }
+
+    /**
+     * Send the compact payload. Returns false for vanilla clients, which need the boss bar.
+     */
+    public static boolean sendPayload(ServerPlayer player, Village village, Rank rank, int points, int claimed, int limit) {
+        if (!isModded(player)) return false;
+        HudUpdatePayload previous = lastSent.get(player.getUUID());
+        HudUpdatePayload payload = previous == null
+            ? HudUpdatePayload.keyframe(village, rank, points, claimed, limit)
+            : HudUpdatePayload.delta(previous, village, rank, points, claimed, limit);
+        if (payload.isEmpty()) return true;
+        lastSent.put(player.getUUID(), payload);
+        if (payloadUpdates++ % METRIC_SAMPLE == 0) {
+            payloadSamples++;
+            payloadBytes += encodedSize(payload);
+        }
+        ServerPlayNetworking.send(player, payload);
+        return true;
+    }
+
+    public static void sendBossBar(ServerPlayer player, Component title, int points, int maxPoints, boolean showProgress) {
+        boolean progressSent = BossHudManager.showOrUpdate(player, title, points, maxPoints, showProgress);
+        if (bossUpdates++ % METRIC_SAMPLE == 0) {
+            bossSamples++;
+            bossBytes += encodedSize(player, title) + BOSS_NAME_OVERHEAD + (progressSent ? BOSS_PROGRESS_BYTES : 0);
+        }
+    }
+
+    private static int encodedSize(HudUpdatePayload payload) {
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer(32));
+        try {
+            HudUpdatePayload.CODEC.encode(buf, payload);
+            return buf.readableBytes();
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static int encodedSize(ServerPlayer player, Component title) {
+        RegistryFriendlyByteBuf buf = new RegistryFriendlyByteBuf(Unpooled.buffer(256), player.level().registryAccess());
+        try {
+            ComponentSerialization.TRUSTED_STREAM_CODEC.encode(buf, title);
+            return buf.readableBytes();
+        } catch (Throwable t) {
+            return 0;
+        } finally {
+            buf.release();
+        }
+    }
+
+    public static String getStatsLine() {
+        return "payload " + payloadUpdates + " updates (" + average(payloadBytes, payloadSamples) + " B avg), bossbar "
+            + bossUpdates + " updates (" + average(bossBytes, bossSamples) + " B avg)";
+    }
+
+    private static String average(long bytes, long samples) {
+        return samples == 0 ? "-" : Long.toString(bytes / samples);
+    }
+}
@@ -0,0 +1,102 @@
+package com.shinobi.shinobialliancemod;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Legacy backend: one pretty-printed JSON file per player,
+ * world/shinobialliancemod/playerdata/<UUID>.json
+ */
+final class JsonPlayerDataStore implements PlayerDataStore {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private final Path directory;
+
+    JsonPlayerDataStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    private Path file(UUID playerUUID) {
+        return directory.resolve(playerUUID.toString() + ".json");
+    }
+
+    @Override
+    public PlayerDataManager.PlayerData load(UUID playerUUID) throws IOException {
+        Path dataFile = file(playerUUID);
+        if (!Files.exists(dataFile)) return null;
+        try (Reader reader = Files.newBufferedReader(dataFile, StandardCharsets.UTF_8)) {
+            return GSON.fromJson(reader, PlayerDataManager.PlayerData.class);
+        }
+    }
+
+    @Override
+    public void write(UUID playerUUID, PlayerDataManager.PlayerData data) throws IOException {
+        Path dataFile = file(playerUUID);
+        Path tmp = dataFile.resolveSibling(dataFile.getFileName() + ".tmp");
+        Files.writeString(tmp, GSON.toJson(data), StandardCharsets.UTF_8);
+        try {
+            Files.move(tmp, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, dataFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public boolean delete(UUID playerUUID) throws IOException {
+        return Files.deleteIfExists(file(playerUUID));
+    }
+
+    @Override
+    public boolean exists(UUID playerUUID) {
+        return Files.exists(file(playerUUID));
+    }
+
+    @Override
+    public void forEach(BiConsumer<UUID, PlayerDataManager.PlayerData> consumer) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path path : files) {
+                String name = path.getFileName().toString();
+                UUID uuid;
+                try {
+                    uuid = UUID.fromString(name.substring(0, name.length() - ".json".length()));
+                } catch (IllegalArgumentException e) {
+                    continue; // not a player file
+                }
+                PlayerDataManager.PlayerData data;
+                try {
+                    data = load(uuid);
+                } catch (Exception e) {
+                    System.out.println("[ShinobiAllianceMod] ⚠️ Skipping unreadable player data file " + name + ": " + e.getMessage());
+                    continue;
+                }
+                if (data != null) consumer.accept(uuid, data);
+            }
+        }
+    }
+
+    @Override
+    public void sync() {
+        // Every write is already a complete file replace
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public String name() {
+        return "json";
+    }
+}
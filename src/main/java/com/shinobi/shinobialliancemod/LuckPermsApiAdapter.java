@@ -0,0 +1,92 @@
+package com.shinobi.shinobialliancemod;
+
+import net.luckperms.api.LuckPerms;
+import net.luckperms.api.LuckPermsProvider;
+import net.luckperms.api.model.data.NodeMap;
+import net.luckperms.api.model.user.User;
+import net.luckperms.api.node.NodeType;
+import net.luckperms.api.node.matcher.NodeMatcher;
+import net.luckperms.api.node.types.InheritanceNode;
+import net.luckperms.api.node.types.PermissionNode;
+import net.minecraft.server.MinecraftServer;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Applies a LuckPermsService.Edit through the LuckPerms API.
+ *
+ * Only LuckPermsService touches this class, and only after checking that LuckPerms
+ * is loaded, so the (compileOnly) API classes are never resolved without it.
+ */
+final class LuckPermsApiAdapter {
+
+    // Last queued transaction per player, so edits for the same user never overlap
+    private static final Map<UUID, CompletableFuture<Void>> TAILS = new ConcurrentHashMap<>();
+
+    private LuckPermsApiAdapter() {}
+
+    /**
+     * Returns the API instance, or null if LuckPerms has not finished enabling.
+     */
+    static LuckPerms api() {
+        try {
+            return LuckPermsProvider.get();
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parent group names of a loaded user, or null if LuckPerms has not loaded them.
+     */
+    static Set<String> parentGroups(LuckPerms luckPerms, UUID playerUUID) {
+        User user = luckPerms.getUserManager().getUser(playerUUID);
+        if (user == null) return null;
+        Set<String> groups = new HashSet<>();
+        for (InheritanceNode node : user.getNodes(NodeType.INHERITANCE)) {
+            groups.add(node.getGroupName());
+        }
+        return groups;
+    }
+
+    /**
+     * Apply every change for one player in a single modifyUser transaction (load, mutate,
+     * save on LuckPerms' own executor). Transactions for the same player are chained.
+     * The callback receives null on success or the failure, and always runs on the
+     * server thread.
+     */
+    static void apply(LuckPerms luckPerms, UUID playerUUID, LuckPermsService.Edit edit, MinecraftServer server, Consumer<Throwable> callback) {
+        CompletableFuture<Void> future = TAILS.compute(playerUUID, (uuid, tail) -> {
+            CompletableFuture<Void> previous = tail != null ? tail.exceptionally(t -> null) : CompletableFuture.completedFuture(null);
+            return previous.thenCompose(ignored -> modify(luckPerms, uuid, edit));
+        });
+        future.whenComplete((ignored, error) -> {
+            TAILS.remove(playerUUID, future);
+            server.execute(() -> callback.accept(error));
+        });
+    }
+
+    private static CompletableFuture<Void> modify(LuckPerms luckPerms, UUID playerUUID, LuckPermsService.Edit edit) {
+        return luckPerms.getUserManager().modifyUser(playerUUID, user -> {
+            NodeMap data = user.data();
+            for (LuckPermsService.Change change : edit.changes()) {
+                switch (change.type) {
+                    case ADD_PARENT -> data.add(InheritanceNode.builder(change.key).build());
+                    case REMOVE_PARENT -> data.remove(InheritanceNode.builder(change.key).build());
+                    case SET_PERMISSION -> {
+                        // Same as "permission set": replace any existing value for the key
+                        data.clear(NodeMatcher.key(change.key));
+                        data.add(PermissionNode.builder(change.key).value(true).build());
+                    }
+                    case UNSET_PERMISSION -> data.clear(NodeMatcher.key(change.key));
+                }
+            }
+        });
+    }
+}
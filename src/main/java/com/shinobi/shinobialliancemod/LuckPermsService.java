@@ -1,21 +1,169 @@
 package com.shinobi.shinobialliancemod;
 
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Group and permission changes for players.
+ *
+ * Changes for one player are collected into an Edit and queued on the
+ * PermissionMutationQueue, which merges edits per player and applies each batch as a
+ * single LuckPerms UserManager.modifyUser transaction (see LuckPermsApiAdapter). When
+ * the LuckPerms API is not available, the batch is replayed as "lp user ..." commands.
+ */
 public class LuckPermsService {
-    
+
+    enum ChangeType { ADD_PARENT, REMOVE_PARENT, SET_PERMISSION, UNSET_PERMISSION }
+
+    static final class Change {
+        final ChangeType type;
+        final String key;
+
+        Change(ChangeType type, String key) {
+            this.type = type;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Ordered list of parent/permission changes for one player.
+     */
+    public static final class Edit {
+        private final List<Change> changes = new ArrayList<>();
+        private boolean refreshClaimLimits;
+
+        public Edit addParent(String group) {
+            changes.add(new Change(ChangeType.ADD_PARENT, group));
+            return this;
+        }
+
+        public Edit removeParent(String group) {
+            changes.add(new Change(ChangeType.REMOVE_PARENT, group));
+            return this;
+        }
+
+        public Edit setPermission(String permission) {
+            changes.add(new Change(ChangeType.SET_PERMISSION, permission));
+            return this;
+        }
+
+        public Edit unsetPermission(String permission) {
+            changes.add(new Change(ChangeType.UNSET_PERMISSION, permission));
+            return this;
+        }
+
+        /** Re-apply OPAC claim limits once the change is in place (merged per player). */
+        public Edit refreshClaimLimits() {
+            refreshClaimLimits = true;
+            return this;
+        }
+
+        Edit add(Change change) {
+            changes.add(change);
+            return this;
+        }
+
+        boolean refreshesClaimLimits() {
+            return refreshClaimLimits;
+        }
+
+        public boolean isEmpty() {
+            return changes.isEmpty();
+        }
+
+        List<Change> changes() {
+            return Collections.unmodifiableList(changes);
+        }
+    }
+
+    public static Edit edit() {
+        return new Edit();
+    }
+
+    /**
+     * Queue an edit for a player; it is applied at the end of the tick together with any
+     * other edits for the same player. onApplied (may be null) runs on the server thread
+     * once the batch has been applied.
+     */
+    public static void apply(ServerPlayer player, Edit edit, MinecraftServer server, Runnable onApplied) {
+        PermissionMutationQueue.enqueue(player.getUUID(), player.getName().getString(), edit, onApplied);
+    }
+
+    public static void apply(ServerPlayer player, Edit edit, MinecraftServer server) {
+        apply(player, edit, server, null);
+    }
+
+    /**
+     * Apply a batch immediately. onApplied runs on the server thread once LuckPerms has
+     * saved the change, or right away on the command fallback path.
+     */
+    static void applyNow(UUID playerUUID, String playerName, Edit edit, MinecraftServer server, Runnable onApplied) {
+        if (FabricLoader.getInstance().isModLoaded("luckperms")) {
+            net.luckperms.api.LuckPerms api = LuckPermsApiAdapter.api();
+            if (api != null) {
+                LuckPermsApiAdapter.apply(api, playerUUID, edit, server, error -> {
+                    if (error != null) {
+                        System.out.println("[LuckPermsService] ⚠️ LuckPerms transaction failed for " + playerName + ", retrying via commands: " + error.getMessage());
+                        applyViaCommands(playerName, edit, server);
+                    }
+                    onApplied.run();
+                });
+                return;
+            }
+        }
+
+        applyViaCommands(playerName, edit, server);
+        onApplied.run();
+    }
+
+    /**
+     * A player's current parent groups from LuckPerms' in-memory user, or null when
+     * the API or the user is not available.
+     */
+    static Set<String> getParentGroups(UUID playerUUID) {
+        if (!FabricLoader.getInstance().isModLoaded("luckperms")) return null;
+        net.luckperms.api.LuckPerms api = LuckPermsApiAdapter.api();
+        return api != null ? LuckPermsApiAdapter.parentGroups(api, playerUUID) : null;
+    }
+
+    /**
+     * Fallback when the LuckPerms API is absent: one "lp user" command per change.
+     */
+    private static void applyViaCommands(String playerName, Edit edit, MinecraftServer server) {
+        for (Change change : edit.changes()) {
+            String action = switch (change.type) {
+                case ADD_PARENT -> "parent add " + change.key;
+                case REMOVE_PARENT -> "parent remove " + change.key;
+                case SET_PERMISSION -> "permission set " + change.key + " true";
+                case UNSET_PERMISSION -> "permission unset " + change.key;
+            };
+            executeCommand(server, "lp user " + playerName + " " + action);
+        }
+    }
+
     /**
      * Automatically sync a player's LuckPerms groups with their mod data on join
      * Fixes players who are missing rank groups
      */
     public static void syncPlayerGroups(ServerPlayer player, MinecraftServer server) {
+        syncPlayerGroups(player, server, false);
+    }
+
+    public static void syncPlayerGroups(ServerPlayer player, MinecraftServer server, boolean refreshClaimLimits) {
         String playerName = player.getName().getString();
         
         // Get player's current village and rank from mod data
         Village village = RankManager.getPlayerVillage(player, server);
         if (village == null) {
             System.out.println("[LuckPermsService] Player " + playerName + " has no village assigned, skipping sync");
+            if (refreshClaimLimits) ShinobiClaimBridge.applyClaimLimits(player);
             return;
         }
         
@@ -29,85 +177,79 @@ public class LuckPermsService {
         
         System.out.println("[LuckPermsService] Syncing " + playerName + ": village=" + village.getId() + ", rank=" + rank.getId());
         
-        // Ensure village group is assigned
-        executeCommand(server, "lp user " + playerName + " parent add " + village.getId());
-        
-        // Ensure rank group is assigned
-        executeCommand(server, "lp user " + playerName + " parent add " + expectedGroup);
+        // Ensure village and rank groups are assigned
+        Edit edit = edit().addParent(village.getId()).addParent(expectedGroup);
+        if (refreshClaimLimits) edit.refreshClaimLimits();
+        apply(player, edit, server);
     }
     
     public static void assignVillage(ServerPlayer player, Village village, MinecraftServer server) {
-        String playerName = player.getName().getString();
+        Edit edit = edit();
 
         // Remove all other village groups first
         for (Village v : Village.values()) {
             if (v != village) {
-                executeCommand(server, "lp user " + playerName + " parent remove " + v.getId());
+                edit.removeParent(v.getId());
             }
         }
 
-        // Add the selected village group
-        executeCommand(server, "lp user " + playerName + " parent add " + village.getId());
-        
-        // Assign starting rank (Genin) for the village
-        String geninGroup = village.getId() + "_genin";
-        executeCommand(server, "lp user " + playerName + " parent add " + geninGroup);
-        
+        // Add the selected village group and starting rank (Genin) for the village
+        edit.addParent(village.getId());
+        edit.addParent(village.getId() + "_genin");
+
+        // Update claim limits once the new groups are in place
+        apply(player, edit.refreshClaimLimits(), server);
+
         System.out.println("[ShinobiAllianceMod] Assigned " + player.getName().getString() + " to village: " + village.getDisplayName() + " as Genin");
-        
-        // Update claim limits for new player
-        ShinobiClaimBridge.applyClaimLimits(player);
     }
 
     public static void setKage(ServerPlayer player, Village village, MinecraftServer server) {
         String playerName = player.getName().getString();
         
+        Edit edit = edit();
+
         // Remove any other kage groups
         for (Village v : Village.values()) {
-            executeCommand(server, "lp user " + playerName + " parent remove " + v.getKageGroup());
+            if (v != village) {
+                edit.removeParent(v.getKageGroup());
+            }
         }
 
-        // Add the kage group for this village
-        executeCommand(server, "lp user " + playerName + " parent add " + village.getKageGroup());
-        
-        // Add OPAC management permissions
-        executeCommand(server, "lp user " + playerName + " permission set openpartiesandclaims.manage." + village.getId() + " true");
-        executeCommand(server, "lp user " + playerName + " permission set openpartiesandclaims.claim." + village.getId() + " true");
-        
+        // Add the kage group for this village and OPAC management permissions
+        edit.addParent(village.getKageGroup())
+            .setPermission("openpartiesandclaims.manage." + village.getId())
+            .setPermission("openpartiesandclaims.claim." + village.getId());
+        apply(player, edit, server);
+
         System.out.println("[ShinobiAllianceMod] Set " + playerName + " as Kage of " + village.getDisplayName());
     }
 
     public static void removeKage(ServerPlayer player, Village village, MinecraftServer server) {
         String playerName = player.getName().getString();
         
-        // Remove the kage group
-        executeCommand(server, "lp user " + playerName + " parent remove " + village.getKageGroup());
-        
-        // Remove OPAC management permissions
-        executeCommand(server, "lp user " + playerName + " permission unset openpartiesandclaims.manage." + village.getId());
-        executeCommand(server, "lp user " + playerName + " permission unset openpartiesandclaims.claim." + village.getId());
-        
+        // Remove the kage group and OPAC management permissions
+        apply(player, edit()
+            .removeParent(village.getKageGroup())
+            .unsetPermission("openpartiesandclaims.manage." + village.getId())
+            .unsetPermission("openpartiesandclaims.claim." + village.getId()), server);
+
         System.out.println("[ShinobiAllianceMod] Removed Kage status from " + playerName);
     }
 
     public static boolean isKage(ServerPlayer player, Village village, MinecraftServer server) {
-        // Check if player's scoreboard team matches the kage team for this village
-        // This is a workaround since we can't use the Permissions API at runtime
-        var scoreboard = server.getScoreboard();
-        var team = scoreboard.getPlayersTeam(player.getName().getString());
-        if (team == null) return false;
-        
-        String kageTeamName = village.getId() + "_kage";
-        return team.getName().equals(kageTeamName);
+        // Read from the cached profile since we can't use the Permissions API at runtime
+        ShinobiProfile profile = ShinobiProfileRegistry.get(player);
+        return profile.getVillage() == village && profile.getRank() == Rank.KAGE;
     }
 
     public static void addWarBypassPermissions(ServerPlayer player, Village enemyVillage, MinecraftServer server) {
         String playerName = player.getName().getString();
         
         // Add temporary bypass permissions for the enemy village
-        executeCommand(server, "lp user " + playerName + " permission set openpartiesandclaims.bypass.claims." + enemyVillage.getId() + " true");
-        executeCommand(server, "lp user " + playerName + " permission set openpartiesandclaims.bypass.container." + enemyVillage.getId() + " true");
-        
+        apply(player, edit()
+            .setPermission("openpartiesandclaims.bypass.claims." + enemyVillage.getId())
+            .setPermission("openpartiesandclaims.bypass.container." + enemyVillage.getId()), server);
+
         System.out.println("[ShinobiAllianceMod] Added war bypass permissions for " + playerName + " against " + enemyVillage.getDisplayName());
     }
 
@@ -115,9 +257,10 @@ public class LuckPermsService {
         String playerName = player.getName().getString();
         
         // Remove bypass permissions
-        executeCommand(server, "lp user " + playerName + " permission unset openpartiesandclaims.bypass.claims." + enemyVillage.getId());
-        executeCommand(server, "lp user " + playerName + " permission unset openpartiesandclaims.bypass.container." + enemyVillage.getId());
-        
+        apply(player, edit()
+            .unsetPermission("openpartiesandclaims.bypass.claims." + enemyVillage.getId())
+            .unsetPermission("openpartiesandclaims.bypass.container." + enemyVillage.getId()), server);
+
         System.out.println("[ShinobiAllianceMod] Removed war bypass permissions for " + playerName + " against " + enemyVillage.getDisplayName());
     }
 
@@ -0,0 +1,89 @@
+package com.shinobi.shinobialliancemod;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.entity.player.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Index of online players who still have to pick a village (the online part of
+ * NEED_VILLAGE). Only these players are visited each tick, so the tick costs nothing
+ * while nobody is onboarding.
+ *
+ * Scroll presence is not polled: InventoryMixin marks a session dirty when the
+ * player's inventory changes, and only then is the inventory scanned and a lost
+ * scroll replaced. Server thread only.
+ */
+public final class OnboardingSessions {
+    private static final class Session {
+        boolean scrollCheckDue = true;
+    }
+
+    private static final Map<UUID, Session> SESSIONS = new HashMap<>();
+
+    private OnboardingSessions() {}
+
+    public static void open(UUID playerUUID) {
+        SESSIONS.putIfAbsent(playerUUID, new Session());
+    }
+
+    public static void close(UUID playerUUID) {
+        SESSIONS.remove(playerUUID);
+    }
+
+    public static boolean isEmpty() {
+        return SESSIONS.isEmpty();
+    }
+
+    public static int size() {
+        return SESSIONS.size();
+    }
+
+    /**
+     * Called from InventoryMixin after any inventory mutation. The mixin also runs for
+     * client-side inventories, which are ignored here.
+     */
+    public static void markInventoryChanged(Player player) {
+        if (!(player instanceof ServerPlayer) || SESSIONS.isEmpty()) return;
+        Session session = SESSIONS.get(player.getUUID());
+        if (session != null) session.scrollCheckDue = true;
+    }
+
+    /**
+     * Replace a lost scroll for onboarding players whose inventory changed. Called every tick.
+     */
+    public static void tick(MinecraftServer server) {
+        if (SESSIONS.isEmpty()) return;
+        for (Map.Entry<UUID, Session> entry : SESSIONS.entrySet()) {
+            // Look up by UUID every tick: respawning replaces the ServerPlayer instance
+            ServerPlayer player = server.getPlayerList().getPlayer(entry.getKey());
+            // Dead (not yet respawned) players keep the check pending for their new inventory
+            if (player == null || player.isDeadOrDying() || player.isRemoved()) continue;
+
+            Session session = entry.getValue();
+            if (session.scrollCheckDue) {
+                session.scrollCheckDue = false;
+                ensureScroll(player, player.getInventory());
+            }
+        }
+    }
+
+    /**
+     * Auto-respawn village scroll if lost/dropped/destroyed.
+     */
+    private static void ensureScroll(ServerPlayer player, Inventory inv) {
+        for (int i = 0; i < inv.getContainerSize(); i++) {
+            if (ShinobiItems.isVillageScroll(inv.getItem(i))) {
+                return;
+            }
+        }
+        var scroll = ShinobiItems.createVillageScroll();
+        if (!inv.add(scroll)) {
+            player.drop(scroll, false);
+        }
+    }
+}
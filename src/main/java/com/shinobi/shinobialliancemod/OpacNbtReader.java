@@ -4,128 +4,292 @@ import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.ListTag;
 import net.minecraft.nbt.NbtIo;
 import net.minecraft.nbt.NbtAccounter;
-import net.minecraft.nbt.Tag;
+import net.minecraft.nbt.StreamTagVisitor;
+import net.minecraft.nbt.TagType;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
 
-import java.io.File;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Reads Open Parties and Claims (OPAC) per-player claim counts directly from the
- * world data NBT files: data/openpartiesandclaims/playerclaims/<UUID>.nbt
+ * world data NBT files: data/openpartiesandclaims/player-claims/<UUID>.nbt
  *
  * We count the total number of claimed chunks as the sum of the sizes of each
- * claim's "positions" list across all dimensions.
+ * claim's "positions" list across all dimensions (streamed, see countClaims).
+ *
+ * Files are never read on the server thread. A WatchService thread notices changed
+ * files and a small parse pool re-reads only those, publishing the totals to a
+ * concurrent cache. getUsedClaims just reads that cache; a miss queues a parse and
+ * returns 0 until it lands. The cache holds online players only (entries are dropped
+ * on disconnect) and is capped at MAX_ENTRIES.
  */
 final class OpacNbtReader {
     private static final boolean DEBUG = false;
     private static final String OPAC_RELATIVE_PATH = "data/openpartiesandclaims/player-claims";
+    private static final int MAX_ENTRIES = 1024;
+    // Heap budget for parsing one claims file (decompressed NBT accounting)
+    private static final long MAX_FILE_BYTES = 16L * 1024 * 1024;
 
-    private static class CacheEntry {
-        long lastReadMs;
-        long lastModified;
-        int value;
-    }
+    private static final Map<UUID, Integer> CACHE = new ConcurrentHashMap<>();
+    // Players with a parse queued but not started, so bursts of events read once
+    private static final Set<UUID> QUEUED = ConcurrentHashMap.newKeySet();
 
-    private static final Map<UUID, CacheEntry> CACHE = new HashMap<>();
+    private static volatile Path claimsDir;
+    private static ExecutorService parsePool;
+    private static WatchService watchService;
+    private static Thread watchThread;
 
     private OpacNbtReader() {}
 
+    /**
+     * Start watching the claims directory and warm the cache for everyone online.
+     */
+    static synchronized void start(MinecraftServer server) {
+        stop();
+        Path dir = server.getWorldPath(net.minecraft.world.level.storage.LevelResource.ROOT).resolve(OPAC_RELATIVE_PATH);
+        claimsDir = dir;
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        AtomicInteger threadId = new AtomicInteger();
+        parsePool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "ShinobiClaims-Parse-" + threadId.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            Files.createDirectories(dir);
+            watchService = dir.getFileSystem().newWatchService();
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+            WatchService ws = watchService;
+            watchThread = new Thread(() -> watchLoop(ws), "ShinobiClaims-Watch");
+            watchThread.setDaemon(true);
+            watchThread.start();
+        } catch (IOException e) {
+            System.out.println("[OpacNbtReader] ⚠️ Could not watch " + dir + ": " + e.getMessage());
+        }
+
+        // Warm in parallel across the parse pool
+        for (ServerPlayer player : server.getPlayerList().getPlayers()) {
+            CACHE.putIfAbsent(player.getUUID(), 0);
+            requestParse(player.getUUID());
+        }
+        System.out.println("[OpacNbtReader] Watching OPAC claim files (" + threads + " parse threads)");
+    }
+
+    static synchronized void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {}
+            watchService = null;
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+            watchThread = null;
+        }
+        if (parsePool != null) {
+            parsePool.shutdownNow();
+            parsePool = null;
+        }
+        CACHE.clear();
+        QUEUED.clear();
+        claimsDir = null;
+    }
+
+    /**
+     * Last known claim count for the player. Never touches the disk.
+     */
     static int getUsedClaims(ServerPlayer player) {
-        MinecraftServer server = player.level().getServer();
-        if (server == null) {
-            if (DEBUG) System.out.println("[OpacNbtReader] Server is null for " + player.getName().getString());
-            return 0;
-        }
-
-        Path worldRoot = server.getWorldPath(net.minecraft.world.level.storage.LevelResource.ROOT);
-        Path claimsDir = worldRoot.resolve(OPAC_RELATIVE_PATH);
-        Path playerFile = claimsDir.resolve(player.getUUID().toString() + ".nbt");
-
-        if (DEBUG) System.out.println("[OpacNbtReader] Looking for claims file: " + playerFile.toAbsolutePath());
-        
-        File file = playerFile.toFile();
-        if (!file.exists()) {
-            if (DEBUG) System.out.println("[OpacNbtReader] Claims file does not exist for " + player.getName().getString());
-            return 0;
-        }
-
-        long now = System.currentTimeMillis();
-        CacheEntry ce = CACHE.get(player.getUUID());
-        long lastMod = file.lastModified();
-        if (ce != null && ce.lastModified == lastMod && (now - ce.lastReadMs) < 1000) {
-            return ce.value;
-        }
-
-        int total = 0;
-        try (InputStream in = Files.newInputStream(playerFile)) {
-            // Detect gzip header (0x1f 0x8b); fallback to uncompressed read
-            byte[] header = in.readNBytes(2);
-            CompoundTag root;
-            if (header.length == 2 && (header[0] & 0xFF) == 0x1F && (header[1] & 0xFF) == 0x8B) {
-                // Re-open stream for compressed read
-                try (InputStream gz = Files.newInputStream(playerFile)) {
-                    root = NbtIo.readCompressed(gz, NbtAccounter.unlimitedHeap());
-                }
-            } else {
-                // Use uncompressed NBT reader (DataInput required)
-                try (InputStream plain = Files.newInputStream(playerFile)) {
-                    var dataIn = new java.io.DataInputStream(plain);
-                    root = NbtIo.read(dataIn, NbtAccounter.unlimitedHeap());
-                }
-            }
-            if (root == null) {
-                if (DEBUG) System.out.println("[OpacNbtReader] Root tag is null");
-                return 0;
-            }
+        UUID uuid = player.getUUID();
+        Integer cached = CACHE.get(uuid);
+        if (cached != null) return cached;
+
+        if (CACHE.size() >= MAX_ENTRIES) {
+            // Only online players should be here; drop whoever is not
+            MinecraftServer server = player.level().getServer();
+            if (server != null) CACHE.keySet().removeIf(id -> server.getPlayerList().getPlayer(id) == null);
+        }
+        CACHE.put(uuid, 0);
+        requestParse(uuid);
+        return 0;
+    }
 
-            CompoundTag dimensions = root.getCompound("dimensions").orElse(null);
-            if (dimensions == null) {
-                if (DEBUG) System.out.println("[OpacNbtReader] No dimensions tag found");
-                return 0;
+    static void forget(UUID playerUUID) {
+        CACHE.remove(playerUUID);
+    }
+
+    private static void requestParse(UUID uuid) {
+        ExecutorService pool = parsePool;
+        Path dir = claimsDir;
+        if (pool == null || dir == null || !QUEUED.add(uuid)) return;
+        try {
+            pool.execute(() -> {
+                QUEUED.remove(uuid);
+                int total = countClaims(dir.resolve(uuid + ".nbt"));
+                // Keep the old value if the file was mid-write; skip if the player was forgotten
+                if (total >= 0) CACHE.computeIfPresent(uuid, (id, old) -> total);
+            });
+        } catch (RejectedExecutionException e) {
+            QUEUED.remove(uuid);
+        }
+    }
+
+    private static void watchLoop(WatchService ws) {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = ws.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
             }
-            if (DEBUG) System.out.println("[OpacNbtReader] Found dimensions tag, parsing claims...");
-
-            String[] dimKeys = new String[] {
-                "minecraft:overworld", "minecraft:the_nether", "minecraft:the_end"
-            };
-
-            for (String dimKey : dimKeys) {
-                CompoundTag dim = dimensions.getCompound(dimKey).orElse(null);
-                if (dim == null) continue;
-                var claimsOpt = dim.getList("claims");
-                if (claimsOpt.isEmpty()) continue;
-                ListTag claims = claimsOpt.get();
-                for (int i = 0; i < claims.size(); i++) {
-                    CompoundTag claim = claims.getCompound(i).orElse(null);
-                    if (claim == null) continue;
-                    var positionsOpt = claim.getList("positions");
-                    if (positionsOpt.isEmpty()) continue;
-                    ListTag positions = positionsOpt.get();
-                    total += positions.size();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // Lost events: re-read everything we track
+                    for (UUID uuid : CACHE.keySet()) requestParse(uuid);
+                    continue;
+                }
+                String name = event.context().toString();
+                if (!name.endsWith(".nbt")) continue;
+                UUID uuid;
+                try {
+                    uuid = UUID.fromString(name.substring(0, name.length() - ".nbt".length()));
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                if (!CACHE.containsKey(uuid)) continue; // nobody online cares
+                if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                    CACHE.computeIfPresent(uuid, (id, old) -> 0);
+                } else {
+                    requestParse(uuid);
                 }
             }
+            if (!key.reset()) return;
+        }
+    }
+
+    /**
+     * Parse one claims file. Runs on the parse pool. Returns -1 if the file could not be read.
+     *
+     * Single pass over one open stream: gzip is detected from the first two bytes, and
+     * a StreamTagVisitor walks dimensions/<any>/claims[]/positions, adding each
+     * positions list length and skipping its elements without building tags.
+     */
+    static int countClaims(Path playerFile) {
+        if (!Files.exists(playerFile)) return 0;
 
-            if (DEBUG) System.out.println("[OpacNbtReader] Total claims for " + player.getName().getString() + ": " + total);
-            
-            CacheEntry updated = ce == null ? new CacheEntry() : ce;
-            updated.lastReadMs = now;
-            updated.lastModified = lastMod;
-            updated.value = total;
-            CACHE.put(player.getUUID(), updated);
-            return total;
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(playerFile))) {
+            raw.mark(2);
+            int b0 = raw.read();
+            int b1 = raw.read();
+            raw.reset();
+            InputStream in = b0 == 0x1F && b1 == 0x8B ? new BufferedInputStream(new GZIPInputStream(raw)) : raw;
+
+            ClaimCountVisitor visitor = new ClaimCountVisitor();
+            NbtIo.parse(new DataInputStream(in), visitor, NbtAccounter.create(MAX_FILE_BYTES));
+            if (DEBUG) System.out.println("[OpacNbtReader] Total claims in " + playerFile.getFileName() + ": " + visitor.total);
+            return visitor.total;
         } catch (Throwable e) {
             if (DEBUG) {
                 System.out.println("[OpacNbtReader] Error reading NBT: " + e.getMessage());
                 e.printStackTrace();
             }
-            return 0;
+            return -1;
+        }
+    }
+
+    /**
+     * Sums the sizes of root.dimensions.<dim>.claims[].positions for every dimension.
+     * Depth counts open containers: 1 root, 2 dimensions, 3 a dimension, 4 claims,
+     * 5 a claim, 6 positions.
+     */
+    private static final class ClaimCountVisitor implements StreamTagVisitor {
+        int total;
+        private int depth;
+
+        private static boolean isContainer(TagType<?> type) {
+            return type == CompoundTag.TYPE || type == ListTag.TYPE;
+        }
+
+        private EntryResult enter() {
+            depth++;
+            return EntryResult.ENTER;
+        }
+
+        @Override
+        public ValueResult visitRootEntry(TagType<?> type) {
+            if (type != CompoundTag.TYPE) return ValueResult.HALT;
+            depth = 1;
+            return ValueResult.CONTINUE;
+        }
+
+        @Override
+        public EntryResult visitEntry(TagType<?> type) {
+            // Only read names of containers; primitives are skipped unread
+            return isContainer(type) ? EntryResult.ENTER : EntryResult.SKIP;
+        }
+
+        @Override
+        public EntryResult visitEntry(TagType<?> type, String id) {
+            switch (depth) {
+                case 1: return type == CompoundTag.TYPE && id.equals("dimensions") ? enter() : EntryResult.SKIP;
+                case 2: return type == CompoundTag.TYPE ? enter() : EntryResult.SKIP;
+                case 3: return type == ListTag.TYPE && id.equals("claims") ? enter() : EntryResult.SKIP;
+                case 5: return type == ListTag.TYPE && id.equals("positions") ? enter() : EntryResult.SKIP;
+                default: return EntryResult.SKIP;
+            }
         }
+
+        @Override
+        public ValueResult visitList(TagType<?> elementType, int size) {
+            if (depth == 6) {
+                total += size;
+                return ValueResult.BREAK; // skip the elements in bulk
+            }
+            return ValueResult.CONTINUE;
+        }
+
+        @Override
+        public EntryResult visitElement(TagType<?> type, int index) {
+            return depth == 4 && type == CompoundTag.TYPE ? enter() : EntryResult.SKIP;
+        }
+
+        @Override
+        public ValueResult visitContainerEnd() {
+            depth--;
+            return ValueResult.CONTINUE;
+        }
+
+        @Override public ValueResult visitEnd() { return ValueResult.CONTINUE; }
+        @Override public ValueResult visit(String value) { return ValueResult.CONTINUE; }
+        @Override public ValueResult visit(byte value) { return ValueResult.CONTINUE; }
+        @Override public ValueResult visit(short value) { return ValueResult.CONTINUE; }
+        @Override public ValueResult visit(int value) { return ValueResult.CONTINUE; }
+        @Override public ValueResult visit(long value) { return ValueResult.CONTINUE; }
+        @Override public ValueResult visit(float value) { return ValueResult.CONTINUE; }
+        @Override public ValueResult visit(double value) { return ValueResult.CONTINUE; }
+        @Override public ValueResult visit(byte[] value) { return ValueResult.CONTINUE; }
+        @Override public ValueResult visit(int[] value) { return ValueResult.CONTINUE; }
+        @Override public ValueResult visit(long[] value) { return ValueResult.CONTINUE; }
     }
 }
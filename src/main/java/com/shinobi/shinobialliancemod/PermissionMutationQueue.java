@@ -0,0 +1,129 @@
+package com.shinobi.shinobialliancemod;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-player queue of pending LuckPerms changes, drained at the end of each server tick.
+ *
+ * Edits queued for the same player before the next drain are merged per node, last
+ * change wins: a duplicate collapses into one, and an add followed by a remove of the
+ * same node (or a set followed by an unset) leaves only the remove. Changes are not
+ * dropped outright, because adds are idempotent "ensure" edits and the node may
+ * already be present. Each drain applies at most one batched edit
+ * per player, and at most PER_TICK_BUDGET players per tick
+ * (-Dshinobi.permissions.perTick, default 16); the rest wait for the next tick.
+ */
+public final class PermissionMutationQueue {
+
+    static final int PER_TICK_BUDGET = Math.max(1, Integer.getInteger("shinobi.permissions.perTick", 16));
+
+    private static final class Pending {
+        final UUID uuid;
+        String name;
+        // Net change per node, keyed by "parent:<group>" or "perm:<node>", in arrival order
+        final Map<String, LuckPermsService.Change> changes = new LinkedHashMap<>();
+        final List<Runnable> callbacks = new ArrayList<>();
+        boolean refreshClaimLimits;
+
+        Pending(UUID uuid, String name) {
+            this.uuid = uuid;
+            this.name = name;
+        }
+    }
+
+    private static final Map<UUID, Pending> QUEUE = new LinkedHashMap<>();
+
+    // Metrics
+    private static final AtomicLong opsQueued = new AtomicLong();
+    private static final AtomicLong opsCoalesced = new AtomicLong();
+    private static final AtomicLong opsApplied = new AtomicLong();
+    private static final AtomicLong batchesApplied = new AtomicLong();
+
+    private PermissionMutationQueue() {}
+
+    /**
+     * Drain on every tick and once more on shutdown. Called once from mod init.
+     */
+    public static void register() {
+        net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents.END_SERVER_TICK.register(server -> drain(server, PER_TICK_BUDGET));
+        net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents.SERVER_STOPPING.register(server -> drain(server, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Queue an edit for a player. onApplied (may be null) runs on the server thread after
+     * the merged batch containing this edit has been applied.
+     */
+    static synchronized void enqueue(UUID playerUUID, String playerName, LuckPermsService.Edit edit, Runnable onApplied) {
+        Pending pending = QUEUE.computeIfAbsent(playerUUID, uuid -> new Pending(uuid, playerName));
+        pending.name = playerName;
+        pending.refreshClaimLimits |= edit.refreshesClaimLimits();
+        if (onApplied != null) pending.callbacks.add(onApplied);
+
+        for (LuckPermsService.Change change : edit.changes()) {
+            opsQueued.incrementAndGet();
+            String key = (change.type == LuckPermsService.ChangeType.ADD_PARENT || change.type == LuckPermsService.ChangeType.REMOVE_PARENT
+                ? "parent:" : "perm:") + change.key;
+            // Last change per node wins; it moves to the end so ordering follows arrival
+            if (pending.changes.remove(key) != null) {
+                opsCoalesced.incrementAndGet();
+            }
+            pending.changes.put(key, change);
+        }
+    }
+
+    /**
+     * Apply queued batches for up to budget players, oldest first.
+     */
+    static void drain(MinecraftServer server, int budget) {
+        List<Pending> batch = new ArrayList<>();
+        synchronized (PermissionMutationQueue.class) {
+            Iterator<Pending> it = QUEUE.values().iterator();
+            while (it.hasNext() && batch.size() < budget) {
+                batch.add(it.next());
+                it.remove();
+            }
+        }
+
+        for (Pending pending : batch) {
+            LuckPermsService.Edit edit = LuckPermsService.edit();
+            for (LuckPermsService.Change change : pending.changes.values()) {
+                edit.add(change);
+            }
+            Runnable done = () -> {
+                for (Runnable callback : pending.callbacks) {
+                    callback.run();
+                }
+                if (pending.refreshClaimLimits) {
+                    ServerPlayer player = server.getPlayerList().getPlayer(pending.uuid);
+                    if (player != null) ShinobiClaimBridge.applyClaimLimits(player);
+                }
+            };
+
+            if (edit.isEmpty()) {
+                done.run();
+                continue;
+            }
+            opsApplied.addAndGet(pending.changes.size());
+            batchesApplied.incrementAndGet();
+            LuckPermsService.applyNow(pending.uuid, pending.name, edit, server, done);
+        }
+    }
+
+    public static synchronized int getQueueDepth() {
+        return QUEUE.size();
+    }
+
+    public static String getStatsLine() {
+        return "players=" + getQueueDepth() + ", queued=" + opsQueued.get() + ", coalesced=" + opsCoalesced.get()
+            + ", applied=" + opsApplied.get() + " in " + batchesApplied.get() + " batches, budget=" + PER_TICK_BUDGET + "/tick";
+    }
+}
@@ -1,78 +1,191 @@
 package com.shinobi.shinobialliancemod;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
 
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 /**
  * Manages persistent storage of player Shinobi data.
- * Stores data in world/shinobialliancemod/playerdata/<UUID>.json
+ *
+ * By default records live in a segmented binary store under
+ * world/shinobialliancemod/playerstore/ (see SegmentedPlayerDataStore). Start the
+ * server with -Dshinobi.playerdata=json to keep the legacy one-file-per-UUID layout
+ * in world/shinobialliancemod/playerdata/. Existing JSON files are imported into the
+ * binary store the first time it is opened and are left in place as a backup; a
+ * marker file in playerstore/ keeps them from being imported again.
+ *
+ * Saves are write-behind: the server thread only records the latest snapshot per
+ * UUID, and a dedicated I/O thread hands it to the store. Repeated saves of the
+ * same player before the writer runs collapse into one write.
  */
 public class PlayerDataManager {
-    
-    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
-    
+
+    private static final String BACKEND_PROPERTY = "shinobi.playerdata";
+    // Created in playerstore/ once the JSON files have been imported
+    private static final String MIGRATED_MARKER = "migrated-from-json";
+
+    // Marker for a pending delete (reset) so it is ordered with pending writes
+    private static final PlayerData DELETED = new PlayerData();
+
+    // Latest unsaved snapshot per player; the I/O thread drains this
+    private static final Map<UUID, PlayerData> pending = new ConcurrentHashMap<>();
+    private static ExecutorService ioExecutor;
+    private static PlayerDataStore store;
+    private static MinecraftServer dataServer;
+
+    // Metrics
+    private static final AtomicLong writesCompleted = new AtomicLong();
+    private static final AtomicLong savesCoalesced = new AtomicLong();
+    private static final AtomicLong lastFlushMicros = new AtomicLong();
+    private static final AtomicLong maxFlushMicros = new AtomicLong();
+
     /**
-     * Player data structure for JSON serialization.
+     * Player data structure (also the JSON serialization shape).
      */
     public static class PlayerData {
         public boolean hasSelectedVillage = false;
         public String selectedVillage = "None";
         public String shinobiRank = "Genin";
         public int achievementPoints = 0;
-        
+
         public PlayerData() {}
-        
+
         public PlayerData(boolean hasSelectedVillage, String selectedVillage, String shinobiRank, int achievementPoints) {
             this.hasSelectedVillage = hasSelectedVillage;
             this.selectedVillage = selectedVillage;
             this.shinobiRank = shinobiRank;
             this.achievementPoints = achievementPoints;
         }
+
+        PlayerData copy() {
+            return new PlayerData(hasSelectedVillage, selectedVillage, shinobiRank, achievementPoints);
+        }
     }
-    
+
     /**
-     * Get the player data directory.
+     * Start the I/O thread and register flush hooks. Called once from mod init.
      */
-    private static File getPlayerDataDirectory(MinecraftServer server) {
-        File worldDir = server.getWorldPath(net.minecraft.world.level.storage.LevelResource.ROOT).toFile();
-        File modDataDir = new File(worldDir, "shinobialliancemod");
-        File playerDataDir = new File(modDataDir, "playerdata");
-        
-        if (!playerDataDir.exists()) {
-            playerDataDir.mkdirs();
+    public static void register() {
+        net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents.AFTER_SAVE.register((server, flush, force) -> flush());
+        net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            flush();
+            closeStore();
+            System.out.println("[ShinobiAllianceMod] Player data flushed on shutdown (" + getStatsLine() + ")");
+        });
+    }
+
+    private static synchronized ExecutorService executor() {
+        if (ioExecutor == null || ioExecutor.isShutdown()) {
+            ioExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "ShinobiPlayerData-IO");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return ioExecutor;
+    }
+
+    /**
+     * Get the store for this server's world, opening it on first use.
+     */
+    private static synchronized PlayerDataStore getStore(MinecraftServer server) {
+        if (store == null || dataServer != server) {
+            closeStore();
+            store = openStore(server);
+            dataServer = server;
+        }
+        return store;
+    }
+
+    private static PlayerDataStore openStore(MinecraftServer server) {
+        Path modDir = server.getWorldPath(net.minecraft.world.level.storage.LevelResource.ROOT).resolve("shinobialliancemod");
+        Path jsonDir = modDir.resolve("playerdata");
+
+        if (!"json".equalsIgnoreCase(System.getProperty(BACKEND_PROPERTY, "binary"))) {
+            try {
+                SegmentedPlayerDataStore binary = new SegmentedPlayerDataStore(modDir.resolve("playerstore"));
+                // Import once; an emptied store must not pull the stale JSON files back in
+                Path marker = modDir.resolve("playerstore").resolve(MIGRATED_MARKER);
+                if (!Files.exists(marker)) {
+                    if (binary.isEmpty() && Files.isDirectory(jsonDir)) {
+                        migrate(new JsonPlayerDataStore(jsonDir), binary);
+                        Files.createFile(marker);
+                    } else if (!binary.isEmpty()) {
+                        Files.createFile(marker); // migrated before the marker existed
+                    }
+                }
+                System.out.println("[ShinobiAllianceMod] Player data store: binary (" + modDir.resolve("playerstore") + ")");
+                return binary;
+            } catch (IOException e) {
+                System.out.println("[ShinobiAllianceMod] ⚠️ Could not open binary player store, falling back to JSON: " + e.getMessage());
+            }
+        }
+
+        try {
+            return new JsonPlayerDataStore(jsonDir);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create player data directory " + jsonDir, e);
         }
-        
-        return playerDataDir;
     }
-    
+
     /**
-     * Get the player data file.
+     * One-time import of legacy JSON files into the binary store.
      */
-    private static File getPlayerDataFile(UUID playerUUID, MinecraftServer server) {
-        return new File(getPlayerDataDirectory(server), playerUUID.toString() + ".json");
+    private static void migrate(PlayerDataStore from, PlayerDataStore to) throws IOException {
+        int[] count = {0};
+        from.forEach((uuid, data) -> {
+            try {
+                to.write(uuid, data);
+                count[0]++;
+            } catch (IOException e) {
+                System.out.println("[ShinobiAllianceMod] ⚠️ Could not migrate player data for " + uuid + ": " + e.getMessage());
+            }
+        });
+        to.sync();
+        if (count[0] > 0) {
+            System.out.println("[ShinobiAllianceMod] ✅ Migrated " + count[0] + " JSON player data files to the binary store");
+        }
     }
-    
+
+    private static synchronized void closeStore() {
+        if (store == null) return;
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.out.println("[ShinobiAllianceMod] ⚠️ Error closing player data store: " + e.getMessage());
+        }
+        store = null;
+        dataServer = null;
+    }
+
     /**
      * Load player data from disk.
-     * Returns new PlayerData() if file doesn't exist.
+     * Returns new PlayerData() if none is stored.
+     * An unsaved pending snapshot takes priority over the stored record.
      */
     public static PlayerData loadPlayerData(UUID playerUUID, MinecraftServer server) {
-        File dataFile = getPlayerDataFile(playerUUID, server);
-        
-        if (!dataFile.exists()) {
-            System.out.println("[ShinobiAllianceMod] No data file for " + playerUUID + ", creating new player data");
-            return new PlayerData();
+        PlayerData queued = pending.get(playerUUID);
+        if (queued != null) {
+            return queued == DELETED ? new PlayerData() : queued.copy();
         }
-        
-        try (FileReader reader = new FileReader(dataFile)) {
-            PlayerData data = GSON.fromJson(reader, PlayerData.class);
+
+        try {
+            PlayerData data = getStore(server).load(playerUUID);
+            if (data == null) {
+                System.out.println("[ShinobiAllianceMod] No stored data for " + playerUUID + ", creating new player data");
+                return new PlayerData();
+            }
             System.out.println("[ShinobiAllianceMod] Loaded data for " + playerUUID + ": hasVillage=" + data.hasSelectedVillage + ", village=" + data.selectedVillage);
             return data;
         } catch (Exception e) {
@@ -81,82 +194,144 @@ public class PlayerDataManager {
             return new PlayerData();
         }
     }
-    
+
     /**
-     * Save player data to disk.
+     * Queue player data to be saved on the I/O thread.
      */
     public static void savePlayerData(UUID playerUUID, PlayerData data, MinecraftServer server) {
-        File dataFile = getPlayerDataFile(playerUUID, server);
-        
-        try (FileWriter writer = new FileWriter(dataFile)) {
-            GSON.toJson(data, writer);
-            System.out.println("[ShinobiAllianceMod] ✅ Saved data for " + playerUUID + ": hasVillage=" + data.hasSelectedVillage + ", village=" + data.selectedVillage + ", rank=" + data.shinobiRank + ", points=" + data.achievementPoints);
-        } catch (Exception e) {
-            System.out.println("[ShinobiAllianceMod] ❌ Error saving player data for " + playerUUID + ": " + e.getMessage());
-            e.printStackTrace();
-        }
+        enqueue(playerUUID, data.copy(), server);
     }
-    
+
     /**
      * Save player data from current game state.
      */
     public static void savePlayerData(ServerPlayer player, MinecraftServer server) {
         UUID playerUUID = player.getUUID();
-        
+
         // Get current game state
         boolean hasVillage = ShinobiAllianceMod.hasSelectedVillage(playerUUID);
         String village = "None";
-        
-        // Try to get village from LuckPerms teams
-        var scoreboard = server.getScoreboard();
-        var team = scoreboard.getPlayersTeam(player.getName().getString());
-        if (team != null) {
-            String teamName = team.getName();
-            // Parse village from team name (format: village_rank)
-            if (teamName.contains("_")) {
-                String[] parts = teamName.split("_");
-                if (parts.length >= 1) {
-                    village = capitalizeFirst(parts[0]);
-                }
-            }
+
+        // Village from cached profile
+        Village playerVillage = ShinobiProfileRegistry.get(player).getVillage();
+        if (playerVillage != null) {
+            village = playerVillage.getDisplayName();
         }
-        
+
         // Get rank and points
         int points = PlayerPointsManager.getPoints(player);
         Rank rank = PlayerPointsManager.getRank(player);
-        
+
         // Create and save data
         PlayerData data = new PlayerData(hasVillage, village, rank.getId(), points);
-        savePlayerData(playerUUID, data, server);
+        enqueue(playerUUID, data, server);
     }
-    
+
     /**
-     * Delete player data file (for resets).
+     * Delete player data (for resets). Ordered after any pending write for the same player.
      */
     public static void deletePlayerData(UUID playerUUID, MinecraftServer server) {
-        File dataFile = getPlayerDataFile(playerUUID, server);
-        
-        if (dataFile.exists()) {
-            if (dataFile.delete()) {
-                System.out.println("[ShinobiAllianceMod] Deleted player data file for " + playerUUID);
-            } else {
-                System.out.println("[ShinobiAllianceMod] ⚠️ Failed to delete player data file for " + playerUUID);
-            }
-        }
+        enqueue(playerUUID, DELETED, server);
     }
-    
+
     /**
-     * Check if player has existing data file.
+     * Check if player has existing stored data.
      */
     public static boolean hasPlayerData(UUID playerUUID, MinecraftServer server) {
-        return getPlayerDataFile(playerUUID, server).exists();
+        PlayerData queued = pending.get(playerUUID);
+        if (queued != null) return queued != DELETED;
+        return getStore(server).exists(playerUUID);
+    }
+
+    /**
+     * Visit every stored player record in one sequential pass (pending saves are
+     * flushed first so the view is current). Runs on the calling thread.
+     */
+    public static void forEachPlayerData(MinecraftServer server, BiConsumer<UUID, PlayerData> consumer) {
+        flush();
+        try {
+            getStore(server).forEach(consumer);
+        } catch (IOException e) {
+            System.out.println("[ShinobiAllianceMod] ⚠️ Error reading player data: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Block until every queued save has been written. Called on world save and shutdown.
+     */
+    public static void flush() {
+        if (ioExecutor == null) return;
+        try {
+            executor().submit(() -> {
+                PlayerDataStore current = store;
+                if (current == null) return;
+                try {
+                    current.sync();
+                } catch (IOException e) {
+                    System.out.println("[ShinobiAllianceMod] ⚠️ Player data sync failed: " + e.getMessage());
+                }
+            }).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.out.println("[ShinobiAllianceMod] ⚠️ Player data flush did not complete: " + e.getMessage());
+        }
+    }
+
+    /** Number of players with an unsaved snapshot. */
+    public static int getQueueDepth() {
+        return pending.size();
     }
-    
+
+    /** Duration of the most recent store write, in microseconds. */
+    public static long getLastFlushMicros() {
+        return lastFlushMicros.get();
+    }
+
+    /** Slowest store write since startup, in microseconds. */
+    public static long getMaxFlushMicros() {
+        return maxFlushMicros.get();
+    }
+
+    public static String getStatsLine() {
+        PlayerDataStore current = store;
+        return "store=" + (current != null ? current.name() : "closed") + ", queue=" + getQueueDepth() + ", written=" + writesCompleted.get() + ", coalesced=" + savesCoalesced.get()
+            + ", lastWrite=" + getLastFlushMicros() + "us, maxWrite=" + getMaxFlushMicros() + "us";
+    }
+
+    private static void enqueue(UUID playerUUID, PlayerData data, MinecraftServer server) {
+        PlayerDataStore target = getStore(server);
+        // Only schedule a writer task if none is already pending for this player
+        if (pending.put(playerUUID, data) != null) {
+            savesCoalesced.incrementAndGet();
+            return;
+        }
+        executor().execute(() -> writePending(playerUUID, target));
+    }
+
     /**
-     * Capitalize first letter of a string.
+     * Runs on the I/O thread: take the latest snapshot and hand it to the store.
      */
-    private static String capitalizeFirst(String str) {
-        if (str == null || str.isEmpty()) return str;
-        return str.substring(0, 1).toUpperCase() + str.substring(1).toLowerCase();
+    private static void writePending(UUID playerUUID, PlayerDataStore target) {
+        PlayerData data = pending.remove(playerUUID);
+        if (data == null) return;
+
+        long start = System.nanoTime();
+        try {
+            if (data == DELETED) {
+                if (target.delete(playerUUID)) {
+                    System.out.println("[ShinobiAllianceMod] Deleted player data for " + playerUUID);
+                }
+            } else {
+                target.write(playerUUID, data);
+                System.out.println("[ShinobiAllianceMod] ✅ Saved data for " + playerUUID + ": hasVillage=" + data.hasSelectedVillage + ", village=" + data.selectedVillage + ", rank=" + data.shinobiRank + ", points=" + data.achievementPoints);
+            }
+            writesCompleted.incrementAndGet();
+        } catch (Exception e) {
+            System.out.println("[ShinobiAllianceMod] ❌ Error saving player data for " + playerUUID + ": " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            long micros = (System.nanoTime() - start) / 1000L;
+            lastFlushMicros.set(micros);
+            maxFlushMicros.accumulateAndGet(micros, Math::max);
+        }
     }
 }
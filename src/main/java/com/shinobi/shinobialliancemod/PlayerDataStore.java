@@ -0,0 +1,33 @@
+package com.shinobi.shinobialliancemod;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Storage backend for PlayerDataManager.
+ * Implementations are called from the player data I/O thread (writes) and the
+ * server thread (loads), so they must be internally synchronized.
+ */
+interface PlayerDataStore {
+
+    /** Returns the stored data, or null if the player has none. */
+    PlayerDataManager.PlayerData load(UUID playerUUID) throws IOException;
+
+    void write(UUID playerUUID, PlayerDataManager.PlayerData data) throws IOException;
+
+    /** Returns true if a record existed and was removed. */
+    boolean delete(UUID playerUUID) throws IOException;
+
+    boolean exists(UUID playerUUID);
+
+    /** Stream every stored player record. */
+    void forEach(BiConsumer<UUID, PlayerDataManager.PlayerData> consumer) throws IOException;
+
+    /** Force written data to disk. */
+    void sync() throws IOException;
+
+    void close() throws IOException;
+
+    String name();
+}
@@ -1,24 +1,58 @@
 package com.shinobi.shinobialliancemod;
 
+import net.minecraft.core.Holder;
+import net.minecraft.resources.Identifier;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.ai.attributes.Attribute;
+import net.minecraft.world.entity.ai.attributes.AttributeInstance;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier;
+import net.minecraft.world.entity.ai.attributes.Attributes;
 import net.minecraft.world.phys.Vec3;
 
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Freezes players in place during village selection.
+ *
+ * A frozen player gets one authoritative teleport to the selection spot, their
+ * movement speed, jump strength and gravity are zeroed and knockback resistance is
+ * maxed so the client does not try to move. Any position update that still arrives
+ * is dropped in ServerGamePacketListenerImplMixin before it is processed; if it shows
+ * the client drifted from the lock position (server-applied velocity such as water
+ * flow or pistons), one correcting teleport is sent, at most every
+ * CORRECTION_INTERVAL_MILLIS.
+ */
 public class PlayerFreezeManager {
-    private static final Map<UUID, FreezeData> frozenPlayers = new HashMap<>();
+    // Read from the network thread by ServerGamePacketListenerImplMixin
+    private static final Map<UUID, FreezeData> frozenPlayers = new ConcurrentHashMap<>();
     
     // Fixed spawn location for village selection
     private static final double SPAWN_X = -32.0;
     private static final double SPAWN_Y = 111.0;
     private static final double SPAWN_Z = -3.0;
     private static final Vec3 SPAWN_POSITION = new Vec3(SPAWN_X, SPAWN_Y, SPAWN_Z);
+
+    private static final Identifier FREEZE_MODIFIER = Identifier.fromNamespaceAndPath("shinobialliancemod", "village_selection_freeze");
+    private static final List<Lock> LOCKS = List.of(
+        new Lock(Attributes.MOVEMENT_SPEED, -1.0, AttributeModifier.Operation.ADD_MULTIPLIED_TOTAL),
+        new Lock(Attributes.JUMP_STRENGTH, -1.0, AttributeModifier.Operation.ADD_MULTIPLIED_TOTAL),
+        new Lock(Attributes.GRAVITY, -1.0, AttributeModifier.Operation.ADD_MULTIPLIED_TOTAL),
+        new Lock(Attributes.KNOCKBACK_RESISTANCE, 1.0, AttributeModifier.Operation.ADD_VALUE)
+    );
+
+    // Reported positions within this distance of the lock need no correction
+    private static final double DRIFT_EPSILON_SQR = 0.01 * 0.01;
+    private static final long CORRECTION_INTERVAL_MILLIS = 1000L;
+
+    private record Lock(Holder<Attribute> attribute, double amount, AttributeModifier.Operation operation) {}
     
     private static class FreezeData {
         Vec3 position;
         boolean frozen;
+        volatile long lastCorrectionMillis; // network thread
         
         FreezeData(Vec3 position) {
             this.position = position;
@@ -30,24 +64,35 @@ public class PlayerFreezeManager {
      * Teleport player to fixed spawn location and freeze them
      */
     public static void freezePlayer(ServerPlayer player) {
-        // Teleport to fixed spawn location
-        player.teleportTo(SPAWN_X, SPAWN_Y, SPAWN_Z);
-        player.setDeltaMovement(Vec3.ZERO);
-        player.hurtMarked = true;
-        
-        // Store freeze data at spawn position
+        // Store freeze data first so the teleport's own position updates are the last accepted
         frozenPlayers.put(player.getUUID(), new FreezeData(SPAWN_POSITION));
+        lockInPlace(player, SPAWN_POSITION);
         System.out.println("[ShinobiAllianceMod] Teleported and froze player " + player.getName().getString() + 
             " at spawn position (" + SPAWN_X + ", " + SPAWN_Y + ", " + SPAWN_Z + ")");
     }
 
+    /**
+     * Re-apply the freeze to a new ServerPlayer instance (after respawn), if still frozen.
+     */
+    public static void reapply(ServerPlayer player) {
+        FreezeData data = frozenPlayers.get(player.getUUID());
+        if (data != null && data.frozen) {
+            lockInPlace(player, data.position);
+        }
+    }
+
     public static void unfreezePlayer(ServerPlayer player) {
         frozenPlayers.remove(player.getUUID());
+        for (Lock lock : LOCKS) {
+            AttributeInstance instance = player.getAttribute(lock.attribute());
+            if (instance != null) instance.removeModifier(FREEZE_MODIFIER);
+        }
         System.out.println("[ShinobiAllianceMod] Unfroze player " + player.getName().getString());
     }
 
     public static boolean isFrozen(ServerPlayer player) {
-        return frozenPlayers.containsKey(player.getUUID()) && frozenPlayers.get(player.getUUID()).frozen;
+        FreezeData data = frozenPlayers.get(player.getUUID());
+        return data != null && data.frozen;
     }
 
     public static Vec3 getLockPosition(ServerPlayer player) {
@@ -55,23 +100,40 @@ public class PlayerFreezeManager {
         return data != null ? data.position : null;
     }
 
-    public static void enforceFreeze(ServerPlayer player) {
-        if (!isFrozen(player)) {
-            return;
-        }
-
-        Vec3 lockPos = getLockPosition(player);
-        if (lockPos == null) {
-            return;
-        }
-
-        Vec3 currentPos = player.position();
-        double distance = lockPos.distanceTo(currentPos);
-
-        if (distance > 0.1) {
-            player.teleportTo(lockPos.x, lockPos.y, lockPos.z);
+    /**
+     * Called from the network thread with the position of a dropped move packet. If the
+     * client has drifted from the lock, schedules one teleport back (rate-limited).
+     */
+    public static void onRejectedMove(ServerPlayer player, double x, double y, double z) {
+        FreezeData data = frozenPlayers.get(player.getUUID());
+        if (data == null || !data.frozen) return;
+        if (data.position.distanceToSqr(x, y, z) <= DRIFT_EPSILON_SQR) return;
+        long now = System.currentTimeMillis();
+        if (now - data.lastCorrectionMillis < CORRECTION_INTERVAL_MILLIS) return;
+        data.lastCorrectionMillis = now;
+        var server = player.level().getServer();
+        if (server == null) return;
+        server.execute(() -> {
+            if (!isFrozen(player) || player.isRemoved()) return;
+            player.teleportTo(data.position.x, data.position.y, data.position.z);
             player.setDeltaMovement(Vec3.ZERO);
             player.hurtMarked = true;
+        });
+    }
+
+    /**
+     * The single authoritative teleport, plus zeroed movement attributes (x0 multiplier)
+     * and full knockback resistance.
+     */
+    private static void lockInPlace(ServerPlayer player, Vec3 position) {
+        player.teleportTo(position.x, position.y, position.z);
+        player.setDeltaMovement(Vec3.ZERO);
+        player.hurtMarked = true;
+        for (Lock lock : LOCKS) {
+            AttributeInstance instance = player.getAttribute(lock.attribute());
+            if (instance != null && !instance.hasModifier(FREEZE_MODIFIER)) {
+                instance.addTransientModifier(new AttributeModifier(FREEZE_MODIFIER, lock.amount(), lock.operation()));
+            }
         }
     }
 }
@@ -0,0 +1,173 @@
+package com.shinobi.shinobialliancemod;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Last known name of each player, so war listings can show offline Kage and allies.
+ *
+ * Names are learned on join and, for players never seen by the mod, from the
+ * server's in-memory profile cache (usercache.json); neither lookup touches disk or
+ * the Mojang profile repository. The cache is an access-ordered LRU capped at
+ * MAX_ENTRIES and is saved with the world as world/shinobialliancemod/names.dat:
+ *
+ *   int magic, int version, int count, then per entry: long msb, long lsb, UTF name
+ *
+ * Written on world save when changed and on shutdown. Server thread only.
+ */
+public final class PlayerNameCache {
+    static final int MAX_ENTRIES = 4096;
+
+    private static final int MAGIC = 0x53484E4D; // "SHNM"
+    private static final int VERSION = 1;
+
+    private static final LinkedHashMap<UUID, String> NAMES = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, String> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private static Path file;
+    private static boolean dirty = false;
+
+    // Metrics
+    private static long hits = 0;
+    private static long profileCacheHits = 0;
+    private static long misses = 0;
+
+    private PlayerNameCache() {}
+
+    /**
+     * Load on server start, learn names on join, save with the world. Called once from mod init.
+     */
+    public static void register() {
+        net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents.SERVER_STARTED.register(server -> {
+            file = server.getWorldPath(net.minecraft.world.level.storage.LevelResource.ROOT)
+                .resolve("shinobialliancemod").resolve("names.dat");
+            load();
+        });
+        net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents.AFTER_SAVE.register((server, flush, force) -> save());
+        net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            save();
+            NAMES.clear();
+            file = null;
+        });
+        net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> remember(handler.getPlayer()));
+    }
+
+    public static void remember(ServerPlayer player) {
+        remember(player.getUUID(), player.getName().getString());
+    }
+
+    public static void remember(UUID uuid, String name) {
+        if (name == null || name.isEmpty()) return;
+        if (!name.equals(NAMES.put(uuid, name))) dirty = true;
+    }
+
+    /**
+     * Display name for a player: online name, cached name, the server's profile cache,
+     * and the UUID as a last resort.
+     */
+    public static String name(UUID uuid, MinecraftServer server) {
+        ServerPlayer player = server.getPlayerList().getPlayer(uuid);
+        if (player != null) {
+            String name = player.getName().getString();
+            remember(uuid, name);
+            return name;
+        }
+        String cached = NAMES.get(uuid);
+        if (cached != null) {
+            hits++;
+            return cached;
+        }
+        String known = fromProfileCache(uuid, server);
+        if (known != null) {
+            profileCacheHits++;
+            remember(uuid, known);
+            return known;
+        }
+        misses++;
+        return uuid.toString();
+    }
+
+    /**
+     * Resolve many players at once (e.g. every Kage and ally in a war listing).
+     */
+    public static Map<UUID, String> names(Collection<UUID> uuids, MinecraftServer server) {
+        Map<UUID, String> result = new HashMap<>(uuids.size() * 2);
+        for (UUID uuid : uuids) {
+            if (!result.containsKey(uuid)) result.put(uuid, name(uuid, server));
+        }
+        return result;
+    }
+
+    private static String fromProfileCache(UUID uuid, MinecraftServer server) {
+        try {
+            Optional<net.minecraft.server.players.NameAndId> entry = server.services().nameToIdCache().get(uuid);
+            return entry.map(net.minecraft.server.players.NameAndId::name).orElse(null);
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    private static void load() {
+        NAMES.clear();
+        dirty = false;
+        if (file == null || !Files.exists(file)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                System.out.println("[ShinobiAllianceMod] ⚠️ Unrecognized name cache " + file + ", starting empty");
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                UUID uuid = new UUID(in.readLong(), in.readLong());
+                NAMES.put(uuid, in.readUTF()); // stored eldest first, so LRU order survives
+            }
+            System.out.println("[ShinobiAllianceMod] Loaded " + NAMES.size() + " cached player names");
+        } catch (IOException e) {
+            System.out.println("[ShinobiAllianceMod] ⚠️ Could not read name cache: " + e.getMessage());
+        }
+    }
+
+    private static void save() {
+        if (!dirty || file == null) return;
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(NAMES.size());
+                for (Map.Entry<UUID, String> entry : NAMES.entrySet()) {
+                    out.writeLong(entry.getKey().getMostSignificantBits());
+                    out.writeLong(entry.getKey().getLeastSignificantBits());
+                    out.writeUTF(entry.getValue());
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            System.out.println("[ShinobiAllianceMod] ⚠️ Could not save name cache: " + e.getMessage());
+        }
+    }
+
+    public static String getStatsLine() {
+        return NAMES.size() + "/" + MAX_ENTRIES + " cached, hits=" + hits + ", profile cache=" + profileCacheHits + ", misses=" + misses;
+    }
+}
@@ -1,5 +1,6 @@
 package com.shinobi.shinobialliancemod;
 
+import net.minecraft.advancements.AdvancementHolder;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.scores.Objective;
@@ -48,12 +49,17 @@ public class PlayerPointsManager {
     }
 
     /**
-     * Get player's current points
+     * Get player's current points (cached in their ShinobiProfile)
      */
     public static int getPoints(ServerPlayer player) {
-        MinecraftServer server = player.level().getServer();
-        if (server == null) return 0;
-        
+        return ShinobiProfileRegistry.get(player).getPoints();
+    }
+
+    /**
+     * Read player's points straight from the scoreboard objective.
+     * Only used to seed a ShinobiProfile on join.
+     */
+    static int readPointsFromScoreboard(ServerPlayer player, MinecraftServer server) {
         Scoreboard scoreboard = server.getScoreboard();
         Objective objective = scoreboard.getObjective(POINTS_OBJECTIVE);
         
@@ -66,15 +72,19 @@ public class PlayerPointsManager {
             return 0;
         }
 
-        return scoreboard.getOrCreatePlayerScore(player, objective).get();
+        return scoreAccess.value();
     }
 
     /**
-     * Set player's points
+     * Set player's points. The scoreboard is only written when the value changes.
      */
     public static void setPoints(ServerPlayer player, int points) {
         MinecraftServer server = player.level().getServer();
         if (server == null) return;
+
+        ShinobiProfile profile = ShinobiProfileRegistry.get(player);
+        if (profile.getPoints() == points) return;
+        profile.setPoints(points);
         
         Scoreboard scoreboard = server.getScoreboard();
         Objective objective = scoreboard.getObjective(POINTS_OBJECTIVE);
@@ -100,12 +110,17 @@ public class PlayerPointsManager {
     }
 
     /**
-     * Get player's current rank (stored as ordinal)
+     * Get player's current rank (cached in their ShinobiProfile)
      */
     public static Rank getRank(ServerPlayer player) {
-        MinecraftServer server = player.level().getServer();
-        if (server == null) return Rank.GENIN;
-        
+        return ShinobiProfileRegistry.get(player).getRank();
+    }
+
+    /**
+     * Read player's rank ordinal straight from the scoreboard objective.
+     * Only used to seed a ShinobiProfile on join.
+     */
+    static Rank readRankFromScoreboard(ServerPlayer player, MinecraftServer server) {
         Scoreboard scoreboard = server.getScoreboard();
         Objective objective = scoreboard.getObjective(RANK_OBJECTIVE);
         
@@ -118,7 +133,7 @@ public class PlayerPointsManager {
             return Rank.GENIN;
         }
 
-        int rankOrdinal = scoreboard.getOrCreatePlayerScore(player, objective).get();
+        int rankOrdinal = scoreAccess.value();
         
         try {
             return Rank.values()[rankOrdinal];
@@ -128,11 +143,16 @@ public class PlayerPointsManager {
     }
 
     /**
-     * Set player's rank (stores as ordinal for easy comparison)
+     * Set player's rank (stores as ordinal for easy comparison).
+     * The scoreboard is only written when the rank changes.
      */
     public static void setRank(ServerPlayer player, Rank rank) {
         MinecraftServer server = player.level().getServer();
         if (server == null) return;
+
+        ShinobiProfile profile = ShinobiProfileRegistry.get(player);
+        if (profile.getRank() == rank) return;
+        profile.setRank(rank);
         
         Scoreboard scoreboard = server.getScoreboard();
         Objective objective = scoreboard.getObjective(RANK_OBJECTIVE);
@@ -155,21 +175,52 @@ public class PlayerPointsManager {
     }
 
     /**
-     * Recalculate a player's total points from completed advancements and update their rank.
-     * Does not change point or rank logic; only recomputes totals using AdvancementPointSystem.
+     * Called when a player completes an advancement (see PlayerAdvancementsMixin).
+     * Adds that advancement's points and re-checks rank only if a threshold was crossed.
+     */
+    public static void onAdvancementCompleted(ServerPlayer player, AdvancementHolder advancement) {
+        applyAdvancementDelta(player, AdvancementPointSystem.getPoints(advancement));
+    }
+
+    /**
+     * Called when a completed advancement is revoked (see PlayerAdvancementsMixin).
      */
-    public static void recalcPointsForPlayer(ServerPlayer player) {
+    public static void onAdvancementRevoked(ServerPlayer player, AdvancementHolder advancement) {
+        applyAdvancementDelta(player, -AdvancementPointSystem.getPoints(advancement));
+    }
+
+    private static void applyAdvancementDelta(ServerPlayer player, int delta) {
+        if (delta == 0) return; // untracked advancement
         MinecraftServer server = player.level().getServer();
         if (server == null) return;
 
+        int oldPoints = getPoints(player);
+        int newPoints = Math.max(0, oldPoints + delta);
+        setPoints(player, newPoints);
+
+        if (Rank.fromPoints(oldPoints) != Rank.fromPoints(newPoints)) {
+            RankManager.checkAndUpdateRank(player, server);
+        }
+    }
+
+    /**
+     * Recalculate a player's total points from completed advancements and update their rank.
+     * Full recount used by /shinobi checkrank; normal play is kept current by onAdvancementCompleted.
+     * Returns the number of tracked advancements the player has completed.
+     */
+    public static int recalcPointsForPlayer(ServerPlayer player) {
+        MinecraftServer server = player.level().getServer();
+        if (server == null) return 0;
+
         int totalPoints = 0;
+        int completed = 0;
 
-        for (var advancement : server.getAdvancements().getAllAdvancements()) {
-            if (AdvancementPointSystem.isTracked(advancement)) {
-                var progress = player.getAdvancements().getOrStartProgress(advancement);
-                if (progress.isDone()) {
-                    totalPoints += AdvancementPointSystem.getPoints(advancement);
-                }
+        // Only walk the resolved tracked slots, not every advancement/recipe on the server
+        for (int slot = 0; slot < AdvancementPointSystem.getSlotCount(); slot++) {
+            var progress = player.getAdvancements().getOrStartProgress(AdvancementPointSystem.getSlotHolder(slot));
+            if (progress.isDone()) {
+                totalPoints += AdvancementPointSystem.getSlotPoints(slot);
+                completed++;
             }
         }
 
@@ -178,6 +229,7 @@ public class PlayerPointsManager {
 
         // Update rank based on new total
         RankManager.checkAndUpdateRank(player, server);
+        return completed;
     }
 
     /**
@@ -198,6 +250,11 @@ public class PlayerPointsManager {
         if (server == null) return;
         
         Scoreboard scoreboard = server.getScoreboard();
+
+        // Reset cached profile values
+        ShinobiProfile profile = ShinobiProfileRegistry.get(player);
+        profile.setPoints(0);
+        profile.setRank(Rank.GENIN);
         
         // Remove from points objective
         Objective pointsObj = scoreboard.getObjective(POINTS_OBJECTIVE);
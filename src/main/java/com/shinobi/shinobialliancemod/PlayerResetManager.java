@@ -52,6 +52,7 @@ public class PlayerResetManager {
             scoreboard.removePlayerFromTeam(playerName, team);
             System.out.println("[ShinobiAllianceMod] Removed " + playerName + " from team: " + team.getName());
         }
+        ShinobiProfileRegistry.get(player).setVillage(null);
         
         // 6. Teleport to village selection spawn
         player.teleportTo(-32.0, 111.0, -3.0);
@@ -45,34 +45,33 @@ public class RankManager {
 
         // Build village_rank group names (e.g., "leaf_jonin")
         String newGroupName = village.getId() + "_" + newRank.getId();
-        
-        // Remove old rank group from LuckPerms
+        LuckPermsService.Edit edit = LuckPermsService.edit();
+
+        // Swap old rank group for the new one
         if (oldRank != null) {
-            String oldGroupName = village.getId() + "_" + oldRank.getId();
-            LuckPermsService.executeCommand(server, "lp user " + playerName + " parent remove " + oldGroupName);
+            edit.removeParent(village.getId() + "_" + oldRank.getId());
+        }
+        edit.addParent(newGroupName);
+
+        // Handle Kage-specific permissions (OPAC)
+        if (newRank == Rank.KAGE) {
+            edit.setPermission("openpartiesandclaims.manage." + village.getId())
+                .setPermission("openpartiesandclaims.claim." + village.getId());
+        } else if (oldRank == Rank.KAGE) {
+            // Remove OPAC permissions if demoted from Kage
+            edit.unsetPermission("openpartiesandclaims.manage." + village.getId())
+                .unsetPermission("openpartiesandclaims.claim." + village.getId());
         }
 
-        // Add new rank group to LuckPerms
-        LuckPermsService.executeCommand(server, "lp user " + playerName + " parent add " + newGroupName);
+        // One LuckPerms transaction; OPAC claim limits are derived from the new groups
+        LuckPermsService.apply(player, edit.refreshClaimLimits(), server);
 
         // Update scoreboard team with new rank prefix
         ScoreboardTeamManager.assignPlayerRankTeam(player, village, newRank, server);
 
-        // Update OPAC claim limits based on new rank
-        ShinobiClaimBridge.applyClaimLimits(player);
-
-        // Handle Kage-specific permissions (OPAC)
         if (newRank == Rank.KAGE) {
-            // Add OPAC management permissions
-            LuckPermsService.executeCommand(server, "lp user " + playerName + " permission set openpartiesandclaims.manage." + village.getId() + " true");
-            LuckPermsService.executeCommand(server, "lp user " + playerName + " permission set openpartiesandclaims.claim." + village.getId() + " true");
-            
             // Broadcast server-wide message
             broadcastKagePromotion(player, village, server);
-        } else if (oldRank == Rank.KAGE && newRank != Rank.KAGE) {
-            // Remove OPAC permissions if demoted from Kage
-            LuckPermsService.executeCommand(server, "lp user " + playerName + " permission unset openpartiesandclaims.manage." + village.getId());
-            LuckPermsService.executeCommand(server, "lp user " + playerName + " permission unset openpartiesandclaims.claim." + village.getId());
         }
 
         // Notify player of promotion/demotion
@@ -92,9 +91,6 @@ public class RankManager {
         
         // PERSISTENCE FIX: Save player data after rank change
         PlayerDataManager.savePlayerData(player, server);
-
-        // Update OPAC claim limits based on new rank
-        ShinobiClaimBridge.updateClaimLimit(player, server);
     }
 
     /**
@@ -125,27 +121,10 @@ public class RankManager {
     }
 
     /**
-     * Get a player's village from their scoreboard team
+     * Get a player's village (cached in their ShinobiProfile)
      */
     public static Village getPlayerVillage(ServerPlayer player, MinecraftServer server) {
-        var scoreboard = server.getScoreboard();
-        var team = scoreboard.getPlayersTeam(player.getName().getString());
-        
-        if (team == null) {
-            return null;
-        }
-
-        String teamName = team.getName();
-        
-        // Team names are either "village_rank" or just "village"
-        // Extract village ID
-        for (Village village : Village.values()) {
-            if (teamName.startsWith(village.getId())) {
-                return village;
-            }
-        }
-
-        return null;
+        return ShinobiProfileRegistry.get(player).getVillage();
     }
 
     /**
@@ -159,7 +138,7 @@ public class RankManager {
         PlayerPointsManager.setRank(player, Rank.GENIN);
 
         // Add Genin group to LuckPerms
-        LuckPermsService.executeCommand(server, "lp user " + playerName + " parent add " + Rank.GENIN.getLuckPermsGroup());
+        LuckPermsService.apply(player, LuckPermsService.edit().addParent(Rank.GENIN.getLuckPermsGroup()), server);
 
         // Assign to rank team
         ScoreboardTeamManager.assignPlayerRankTeam(player, village, Rank.GENIN, server);
@@ -0,0 +1,259 @@
+package com.shinobi.shinobialliancemod;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Periodic rank/group resync as a three-stage pipeline:
+ * 1. snapshot - on the server thread, copy each online player's points, rank, village
+ *    and LuckPerms parent groups into immutable PlayerSnapshots;
+ * 2. diff - on a worker pool, compute the correction (if any) for each snapshot in
+ *    parallel; this stage touches nothing but the snapshots;
+ * 3. apply - back on the server thread, each correction is scheduled at a random
+ *    tick through TickScheduler.scheduleSpread, over a window sized for about
+ *    APPLY_BATCH per tick (at least MIN_APPLY_SPREAD_TICKS), so corrections are jittered.
+ *
+ * Each sweep reports how many players were already in sync and how many were corrected.
+ */
+public final class ResyncPipeline {
+    private static final int DIFF_CHUNK = 32;
+    private static final int APPLY_BATCH = 8;
+    private static final int MIN_APPLY_SPREAD_TICKS = 20;
+
+    // Points at the last resync per player; rank is only recomputed when these moved,
+    // so admin-assigned ranks (e.g. /shinobi setkage) are left alone
+    private static final Map<UUID, Integer> lastPoints = new HashMap<>();
+
+    private static ExecutorService workers;
+    private static boolean sweepRunning = false;
+
+    // Metrics (server thread)
+    private static long sweeps = 0;
+    private static int lastInSync = 0;
+    private static int lastCorrected = 0;
+    private static long totalCorrected = 0;
+    private static long staleDropped = 0;
+
+    private ResyncPipeline() {}
+
+    /** Immutable per-player input to the diff stage. */
+    static final class PlayerSnapshot {
+        final UUID uuid;
+        final int points;
+        final int previousPoints;
+        final Rank rank;
+        final Village village;
+        final Set<String> groups; // null when LuckPerms is not available
+
+        PlayerSnapshot(UUID uuid, int points, int previousPoints, Rank rank, Village village, Set<String> groups) {
+            this.uuid = uuid;
+            this.points = points;
+            this.previousPoints = previousPoints;
+            this.rank = rank;
+            this.village = village;
+            this.groups = groups != null ? Collections.unmodifiableSet(groups) : null;
+        }
+    }
+
+    /**
+     * Output of the diff stage; null means the player is in sync. Carries the snapshot's
+     * points, rank and village so apply can tell whether it is still current.
+     */
+    static final class Correction {
+        final UUID uuid;
+        final int points;
+        final Rank rank;
+        final Village village;
+        final boolean rankChanged;
+        final boolean fullGroupSync;
+        final LuckPermsService.Edit groupEdit;
+
+        Correction(PlayerSnapshot s, boolean rankChanged, boolean fullGroupSync, LuckPermsService.Edit groupEdit) {
+            this.uuid = s.uuid;
+            this.points = s.points;
+            this.rank = s.rank;
+            this.village = s.village;
+            this.rankChanged = rankChanged;
+            this.fullGroupSync = fullGroupSync;
+            this.groupEdit = groupEdit;
+        }
+    }
+
+    public static void rememberPoints(ServerPlayer player) {
+        lastPoints.put(player.getUUID(), PlayerPointsManager.getPoints(player));
+    }
+
+    public static void forget(UUID playerUUID) {
+        lastPoints.remove(playerUUID);
+    }
+
+    /**
+     * Start a sweep. Server thread only; skipped if the previous sweep is still applying.
+     */
+    public static void sweep(MinecraftServer server) {
+        if (sweepRunning) return;
+
+        // Stage 1: snapshot on the tick thread
+        List<PlayerSnapshot> snapshots = new ArrayList<>();
+        for (ServerPlayer player : server.getPlayerList().getPlayers()) {
+            ShinobiProfile profile = ShinobiProfileRegistry.get(player);
+            if (profile.getVillage() == null) continue; // still onboarding
+            UUID uuid = player.getUUID();
+            snapshots.add(new PlayerSnapshot(uuid, profile.getPoints(), lastPoints.getOrDefault(uuid, -1),
+                profile.getRank(), profile.getVillage(), LuckPermsService.getParentGroups(uuid)));
+        }
+        if (snapshots.isEmpty()) return;
+        sweepRunning = true;
+
+        // Stage 2: diff in parallel
+        List<CompletableFuture<List<Correction>>> chunks = new ArrayList<>();
+        for (int i = 0; i < snapshots.size(); i += DIFF_CHUNK) {
+            List<PlayerSnapshot> chunk = snapshots.subList(i, Math.min(snapshots.size(), i + DIFF_CHUNK));
+            chunks.add(CompletableFuture.supplyAsync(() -> {
+                List<Correction> out = new ArrayList<>();
+                for (PlayerSnapshot snapshot : chunk) {
+                    Correction correction = diff(snapshot);
+                    if (correction != null) out.add(correction);
+                }
+                return out;
+            }, workers()));
+        }
+
+        int total = snapshots.size();
+        CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).whenComplete((ignored, error) -> server.execute(() -> {
+            if (error != null) {
+                sweepRunning = false;
+                System.out.println("[ShinobiAllianceMod] ⚠️ Resync diff failed: " + error.getMessage());
+                return;
+            }
+            List<Correction> corrections = new ArrayList<>();
+            for (CompletableFuture<List<Correction>> chunk : chunks) corrections.addAll(chunk.join());
+            scheduleApply(server, corrections, total);
+        }));
+    }
+
+    /**
+     * Stage 2. Pure function of the snapshot.
+     */
+    static Correction diff(PlayerSnapshot s) {
+        boolean pointsMoved = s.points != s.previousPoints;
+        boolean rankChanged = pointsMoved && Rank.fromPoints(s.points) != s.rank;
+
+        if (s.groups == null) {
+            // No group view without the LuckPerms API: re-push groups when points moved, as before
+            return pointsMoved ? new Correction(s, rankChanged, true, null) : null;
+        }
+
+        // The rank change re-assigns the rank group itself; otherwise check groups for the current rank
+        LuckPermsService.Edit edit = LuckPermsService.edit();
+        String villageId = s.village.getId();
+        if (!s.groups.contains(villageId)) edit.addParent(villageId);
+        if (!rankChanged) {
+            String rankGroup = villageId + "_" + s.rank.getId();
+            if (!s.groups.contains(rankGroup)) edit.addParent(rankGroup);
+            for (Rank other : Rank.values()) {
+                String otherGroup = villageId + "_" + other.getId();
+                if (other != s.rank && s.groups.contains(otherGroup)) edit.removeParent(otherGroup);
+            }
+        }
+
+        if (!rankChanged && edit.isEmpty()) {
+            return pointsMoved ? new Correction(s, false, false, null) : null;
+        }
+        return new Correction(s, rankChanged, false, edit.isEmpty() ? null : edit);
+    }
+
+    /**
+     * Stage 3: apply corrections on the tick thread, jittered over the spread window.
+     */
+    private static void scheduleApply(MinecraftServer server, List<Correction> corrections, int total) {
+        int corrected = 0;
+        for (Correction c : corrections) {
+            if (c.rankChanged || c.fullGroupSync || c.groupEdit != null) corrected++;
+        }
+        int inSync = total - corrected;
+        sweeps++;
+        lastInSync = inSync;
+        lastCorrected = corrected;
+        totalCorrected += corrected;
+        System.out.println("[ShinobiAllianceMod] Resync sweep: " + inSync + " in sync, " + corrected + " corrected");
+
+        if (corrections.isEmpty()) {
+            sweepRunning = false;
+            return;
+        }
+
+        int spread = Math.max(MIN_APPLY_SPREAD_TICKS, (corrections.size() + APPLY_BATCH - 1) / APPLY_BATCH);
+        AtomicInteger remaining = new AtomicInteger(corrections.size());
+        for (Correction c : corrections) {
+            TickScheduler.scheduleSpread(spread, () -> {
+                apply(server, c);
+                if (remaining.decrementAndGet() == 0) sweepRunning = false;
+            });
+        }
+    }
+
+    private static void apply(MinecraftServer server, Correction c) {
+        ServerPlayer player = server.getPlayerList().getPlayer(c.uuid);
+        if (player == null) return; // left since the snapshot
+        ShinobiProfile profile = ShinobiProfileRegistry.get(player);
+        if (profile.getPoints() != c.points || profile.getRank() != c.rank || profile.getVillage() != c.village) {
+            staleDropped++; // changed since the snapshot; the next sweep diffs the new state
+            return;
+        }
+        lastPoints.put(c.uuid, c.points);
+
+        if (c.rankChanged) {
+            RankManager.checkAndUpdateRank(player, server);
+        }
+        if (c.fullGroupSync) {
+            LuckPermsService.syncPlayerGroups(player, server, true);
+        } else if (c.groupEdit != null) {
+            LuckPermsService.apply(player, c.groupEdit.refreshClaimLimits(), server);
+        }
+        if (c.rankChanged || c.fullGroupSync || c.groupEdit != null) {
+            System.out.println("[ShinobiAllianceMod] Auto-resync for " + player.getName().getString());
+        }
+    }
+
+    private static synchronized ExecutorService workers() {
+        if (workers == null || workers.isShutdown()) {
+            int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+            AtomicInteger id = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "ShinobiResync-" + id.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return workers;
+    }
+
+    /**
+     * Reset state and stop the diff workers on server stop.
+     */
+    public static synchronized void stop() {
+        sweepRunning = false;
+        lastPoints.clear();
+        if (workers != null) {
+            workers.shutdownNow();
+            workers = null;
+        }
+    }
+
+    public static String getStatsLine() {
+        return "sweeps=" + sweeps + ", lastInSync=" + lastInSync + ", lastCorrected=" + lastCorrected + ", totalCorrected=" + totalCorrected + ", stale=" + staleDropped;
+    }
+}
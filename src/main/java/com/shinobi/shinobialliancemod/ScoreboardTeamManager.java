@@ -56,15 +56,18 @@ public class ScoreboardTeamManager {
         String playerName = player.getScoreboardName();
         String teamName = village.getId() + "_" + rank.getId();
 
-        // Remove from ALL teams first (all villages, all ranks)
-        for (Village v : Village.values()) {
-            for (Rank r : Rank.values()) {
-                String oldTeamName = v.getId() + "_" + r.getId();
-                PlayerTeam oldTeam = scoreboard.getPlayerTeam(oldTeamName);
-                if (oldTeam != null && oldTeam.getPlayers().contains(playerName)) {
-                    scoreboard.removePlayerFromTeam(playerName, oldTeam);
-                }
-            }
+        ShinobiProfile profile = ShinobiProfileRegistry.get(player);
+        profile.setVillage(village);
+
+        // Only touch the scoreboard when the team actually changes
+        PlayerTeam currentTeam = scoreboard.getPlayersTeam(playerName);
+        if (currentTeam != null && currentTeam.getName().equals(teamName)) {
+            return;
+        }
+
+        // A player can only be on one team; drop the old one first
+        if (currentTeam != null) {
+            scoreboard.removePlayerFromTeam(playerName, currentTeam);
         }
 
         // Add to the new rank team
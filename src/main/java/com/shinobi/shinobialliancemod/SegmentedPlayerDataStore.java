@@ -0,0 +1,349 @@
+package com.shinobi.shinobialliancemod;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Binary backend: fixed-layout 32-byte player records packed into a few segment
+ * files, world/shinobialliancemod/playerstore/segment-N.dat, plus a memory-mapped
+ * open-addressing index (index.dat) from UUID to record slot.
+ *
+ * Record layout (big-endian):
+ *   0  long  uuid most significant bits
+ *   8  long  uuid least significant bits
+ *   16 byte  flags (bit 0 = in use, bit 1 = has selected village)
+ *   17 byte  village ordinal + 1 (0 = none)
+ *   18 byte  rank ordinal
+ *   19 byte  reserved
+ *   20 int   achievement points
+ *   24 8     reserved
+ *
+ * Index layout: 16-byte header (magic, version, capacity, size), then capacity
+ * entries of 24 bytes: msb, lsb, slot, state (0 = empty, 1 = live, 2 = deleted).
+ */
+final class SegmentedPlayerDataStore implements PlayerDataStore {
+    static final int RECORD_SIZE = 32;
+    static final int RECORDS_PER_SEGMENT = 4096; // 128 KiB per segment file
+
+    private static final int FLAG_USED = 1;
+    private static final int FLAG_HAS_VILLAGE = 2;
+
+    private static final int INDEX_MAGIC = 0x53484E49; // "SHNI"
+    private static final int INDEX_VERSION = 1;
+    private static final int INDEX_HEADER = 16;
+    private static final int INDEX_ENTRY = 24;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int STATE_EMPTY = 0;
+    private static final int STATE_LIVE = 1;
+    private static final int STATE_DELETED = 2;
+
+    private final Path directory;
+    private final FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int capacity;
+    private int size;
+    private int used; // live + deleted entries, drives rehash
+
+    private final List<FileChannel> segments = new ArrayList<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private int nextSlot;
+
+    SegmentedPlayerDataStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        Path indexFile = directory.resolve("index.dat");
+        boolean fresh = !Files.exists(indexFile) || Files.size(indexFile) < INDEX_HEADER;
+        this.indexChannel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (fresh) {
+            mapIndex(INITIAL_CAPACITY);
+            writeHeader();
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER);
+            indexChannel.read(header, 0);
+            header.flip();
+            if (header.getInt() != INDEX_MAGIC || header.getInt() != INDEX_VERSION) {
+                throw new IOException("Unrecognized player store index " + indexFile);
+            }
+            mapIndex(header.getInt());
+            size = index.getInt(12);
+        }
+
+        // Rebuild slot allocation state from the index
+        BitSet liveSlots = new BitSet();
+        for (int i = 0; i < capacity; i++) {
+            int state = entryState(i);
+            if (state != STATE_EMPTY) used++;
+            if (state == STATE_LIVE) liveSlots.set(entrySlot(i));
+        }
+        nextSlot = liveSlots.length();
+        for (int slot = liveSlots.nextClearBit(0); slot < nextSlot; slot = liveSlots.nextClearBit(slot + 1)) {
+            freeSlots.add(slot);
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // ===== PlayerDataStore =====
+
+    @Override
+    public synchronized PlayerDataManager.PlayerData load(UUID playerUUID) throws IOException {
+        int entry = findEntry(playerUUID);
+        if (entry < 0) return null;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        readRecord(entrySlot(entry), record);
+        return decode(record, playerUUID);
+    }
+
+    @Override
+    public synchronized void write(UUID playerUUID, PlayerDataManager.PlayerData data) throws IOException {
+        int entry = findEntry(playerUUID);
+        int slot;
+        if (entry >= 0) {
+            slot = entrySlot(entry);
+        } else {
+            slot = freeSlots.isEmpty() ? nextSlot++ : freeSlots.poll();
+            insertEntry(playerUUID, slot);
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        encode(playerUUID, data, record);
+        record.flip();
+        segment(slot / RECORDS_PER_SEGMENT).write(record, (long) (slot % RECORDS_PER_SEGMENT) * RECORD_SIZE);
+    }
+
+    @Override
+    public synchronized boolean delete(UUID playerUUID) throws IOException {
+        int entry = findEntry(playerUUID);
+        if (entry < 0) return false;
+        int slot = entrySlot(entry);
+        // Clear the record first so a crash never leaves a live index entry to a foreign record
+        ByteBuffer cleared = ByteBuffer.allocate(RECORD_SIZE);
+        segment(slot / RECORDS_PER_SEGMENT).write(cleared, (long) (slot % RECORDS_PER_SEGMENT) * RECORD_SIZE);
+        index.putInt(entryOffset(entry) + 20, STATE_DELETED);
+        size--;
+        index.putInt(12, size);
+        freeSlots.add(slot);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean exists(UUID playerUUID) {
+        return findEntry(playerUUID) >= 0;
+    }
+
+    /**
+     * Stream all records by reading each segment sequentially in one pass.
+     */
+    @Override
+    public synchronized void forEach(BiConsumer<UUID, PlayerDataManager.PlayerData> consumer) throws IOException {
+        int segmentCount = (nextSlot + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT;
+        ByteBuffer buffer = ByteBuffer.allocate(RECORDS_PER_SEGMENT * RECORD_SIZE);
+        for (int s = 0; s < segmentCount; s++) {
+            buffer.clear();
+            FileChannel channel = segment(s);
+            while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+                // keep reading until the segment is fully buffered
+            }
+            int records = buffer.position() / RECORD_SIZE;
+            for (int r = 0; r < records; r++) {
+                ByteBuffer record = buffer.duplicate();
+                record.position(r * RECORD_SIZE).limit((r + 1) * RECORD_SIZE);
+                record = record.slice();
+                if ((record.get(16) & FLAG_USED) == 0) continue;
+                UUID uuid = new UUID(record.getLong(0), record.getLong(8));
+                consumer.accept(uuid, decode(record, uuid));
+            }
+        }
+    }
+
+    @Override
+    public synchronized void sync() throws IOException {
+        index.force();
+        for (FileChannel channel : segments) {
+            if (channel != null) channel.force(false);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        for (FileChannel channel : segments) {
+            if (channel != null) channel.close();
+        }
+        segments.clear();
+        indexChannel.close();
+    }
+
+    @Override
+    public String name() {
+        return "binary";
+    }
+
+    // ===== Records =====
+
+    private FileChannel segment(int segmentIndex) throws IOException {
+        while (segments.size() <= segmentIndex) segments.add(null);
+        FileChannel channel = segments.get(segmentIndex);
+        if (channel == null) {
+            channel = FileChannel.open(directory.resolve("segment-" + segmentIndex + ".dat"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segments.set(segmentIndex, channel);
+        }
+        return channel;
+    }
+
+    private void readRecord(int slot, ByteBuffer record) throws IOException {
+        FileChannel channel = segment(slot / RECORDS_PER_SEGMENT);
+        long position = (long) (slot % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+        while (record.hasRemaining() && channel.read(record, position + record.position()) > 0) {
+            // short reads are possible on some filesystems
+        }
+        record.flip();
+    }
+
+    private static void encode(UUID uuid, PlayerDataManager.PlayerData data, ByteBuffer out) {
+        Village village = data.selectedVillage != null ? Village.fromId(data.selectedVillage) : null;
+        Rank rank = Rank.fromId(data.shinobiRank != null ? data.shinobiRank : "");
+        int flags = FLAG_USED | (data.hasSelectedVillage ? FLAG_HAS_VILLAGE : 0);
+        out.putLong(uuid.getMostSignificantBits());
+        out.putLong(uuid.getLeastSignificantBits());
+        out.put((byte) flags);
+        out.put((byte) (village != null ? village.ordinal() + 1 : 0));
+        out.put((byte) rank.ordinal());
+        out.put((byte) 0);
+        out.putInt(data.achievementPoints);
+        out.putLong(0L);
+    }
+
+    private static PlayerDataManager.PlayerData decode(ByteBuffer record, UUID expected) {
+        if (record.remaining() < RECORD_SIZE || (record.get(16) & FLAG_USED) == 0) return null;
+        if (record.getLong(0) != expected.getMostSignificantBits() || record.getLong(8) != expected.getLeastSignificantBits()) {
+            return null; // index points at a stale slot
+        }
+        int flags = record.get(16);
+        int villageByte = record.get(17);
+        int rankOrdinal = record.get(18);
+        Village[] villages = Village.values();
+        Rank[] ranks = Rank.values();
+        String village = villageByte > 0 && villageByte <= villages.length ? villages[villageByte - 1].getDisplayName() : "None";
+        String rank = rankOrdinal >= 0 && rankOrdinal < ranks.length ? ranks[rankOrdinal].getId() : Rank.GENIN.getId();
+        return new PlayerDataManager.PlayerData((flags & FLAG_HAS_VILLAGE) != 0, village, rank, record.getInt(20));
+    }
+
+    // ===== Index =====
+
+    private void mapIndex(int newCapacity) throws IOException {
+        capacity = newCapacity;
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER + (long) newCapacity * INDEX_ENTRY);
+    }
+
+    private void writeHeader() {
+        index.putInt(0, INDEX_MAGIC);
+        index.putInt(4, INDEX_VERSION);
+        index.putInt(8, capacity);
+        index.putInt(12, size);
+    }
+
+    private static int entryOffset(int entry) {
+        return INDEX_HEADER + entry * INDEX_ENTRY;
+    }
+
+    private int entryState(int entry) {
+        return index.getInt(entryOffset(entry) + 20);
+    }
+
+    private int entrySlot(int entry) {
+        return index.getInt(entryOffset(entry) + 16);
+    }
+
+    private int bucket(long msb, long lsb) {
+        long h = msb ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & (capacity - 1);
+    }
+
+    private int findEntry(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        for (int i = bucket(msb, lsb), probes = 0; probes < capacity; i = (i + 1) & (capacity - 1), probes++) {
+            int off = entryOffset(i);
+            int state = index.getInt(off + 20);
+            if (state == STATE_EMPTY) return -1;
+            if (state == STATE_LIVE && index.getLong(off) == msb && index.getLong(off + 8) == lsb) return i;
+        }
+        return -1;
+    }
+
+    private void insertEntry(UUID uuid, int slot) throws IOException {
+        if ((used + 1) * 2 > capacity) {
+            rehash(size * 4 > capacity ? capacity * 2 : capacity);
+        }
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        int i = bucket(msb, lsb);
+        while (entryState(i) == STATE_LIVE) {
+            i = (i + 1) & (capacity - 1);
+        }
+        if (entryState(i) == STATE_EMPTY) used++;
+        int off = entryOffset(i);
+        index.putLong(off, msb);
+        index.putLong(off + 8, lsb);
+        index.putInt(off + 16, slot);
+        index.putInt(off + 20, STATE_LIVE);
+        size++;
+        index.putInt(12, size);
+    }
+
+    /**
+     * Grow (or just purge deleted entries from) the index in place.
+     */
+    private void rehash(int newCapacity) throws IOException {
+        long[] msbs = new long[size];
+        long[] lsbs = new long[size];
+        int[] slots = new int[size];
+        int n = 0;
+        for (int i = 0; i < capacity; i++) {
+            if (entryState(i) != STATE_LIVE) continue;
+            int off = entryOffset(i);
+            msbs[n] = index.getLong(off);
+            lsbs[n] = index.getLong(off + 8);
+            slots[n] = index.getInt(off + 16);
+            n++;
+        }
+
+        mapIndex(newCapacity);
+        for (int i = 0; i < capacity; i++) {
+            index.putInt(entryOffset(i) + 20, STATE_EMPTY);
+        }
+        size = 0;
+        used = 0;
+        writeHeader();
+        for (int k = 0; k < n; k++) {
+            int i = bucket(msbs[k], lsbs[k]);
+            while (entryState(i) != STATE_EMPTY) i = (i + 1) & (capacity - 1);
+            int off = entryOffset(i);
+            index.putLong(off, msbs[k]);
+            index.putLong(off + 8, lsbs[k]);
+            index.putInt(off + 16, slots[k]);
+            index.putInt(off + 20, STATE_LIVE);
+            size++;
+            used++;
+        }
+        index.putInt(12, size);
+    }
+}
@@ -21,24 +21,22 @@ public final class ShinobiAllianceMod implements ModInitializer {
     private static final Set<UUID> NEED_VILLAGE = new HashSet<>();
 
     public static boolean hasSelectedVillage(UUID playerUUID) { return !NEED_VILLAGE.contains(playerUUID); }
-    public static void clearPlayerCache(UUID playerUUID) { NEED_VILLAGE.remove(playerUUID); }
-    public static void markPlayerAsNeedingVillageSelection(UUID playerUUID) { NEED_VILLAGE.add(playerUUID); }
+    public static void clearPlayerCache(UUID playerUUID) { NEED_VILLAGE.remove(playerUUID); OnboardingSessions.close(playerUUID); }
+    public static void markPlayerAsNeedingVillageSelection(UUID playerUUID) { NEED_VILLAGE.add(playerUUID); OnboardingSessions.open(playerUUID); }
 
     private static boolean hasAnyVillageTeam(ServerPlayer player) {
-        var scoreboard = player.level().getServer().getScoreboard();
-        var team = scoreboard.getPlayersTeam(player.getScoreboardName());
-        if (team == null) return false;
-        String name = team.getName();
-        for (Village v : Village.values()) {
-            if (name.startsWith(v.getId() + "_")) return true;
-            if (name.equals(v.getId())) return true;
-        }
-        return false;
+        return ShinobiProfileRegistry.get(player).getVillage() != null;
     }
     @Override
     public void onInitialize() {
         // Register war event handlers to bypass OPAC claims during active wars
         WarEventHandler.register();
+
+        // Write-behind player data persistence (flushes on world save and shutdown)
+        PlayerDataManager.register();
+        PermissionMutationQueue.register();
+        ClaimCountService.register();
+        PlayerNameCache.register();
         
         // Register custom packet payloads
         net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry.playS2C().register(
@@ -56,6 +54,8 @@ public final class ShinobiAllianceMod implements ModInitializer {
 
             // Initialize scoreboard teams once
             ScoreboardTeamManager.initializeTeams(server);
+            // Load the in-memory profile (village, rank, points) from the scoreboard
+            ShinobiProfileRegistry.load(player);
             // Determine onboarding state: no village team & not previously selected
             boolean needsVillage = !hasAnyVillageTeam(player) || NEED_VILLAGE.contains(player.getUUID());
             if (needsVillage) {
@@ -71,8 +71,7 @@ public final class ShinobiAllianceMod implements ModInitializer {
                 ShinobiClaimBridge.applyClaimLimits(player);
             } else {
                 // Already selected a village previously
-                LuckPermsService.syncPlayerGroups(player, server);
-                ShinobiClaimBridge.applyClaimLimits(player);
+                LuckPermsService.syncPlayerGroups(player, server, true);
                 ShinobiScheduler.initializePlayerState(player);
                 WarManager.handlePlayerLogin(player, server);
             }
@@ -122,48 +121,53 @@ public final class ShinobiAllianceMod implements ModInitializer {
             ServerPlayer player = handler.player;
             if (player != null) {
                 ShinobiScheduler.unpinHud(player);
+                ShinobiProfileRegistry.unload(player.getUUID());
+                ResyncPipeline.forget(player.getUUID());
+                OnboardingSessions.close(player.getUUID());
             }
         });
 
         // Initialize systems when server fully started
         net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents.SERVER_STARTED.register(server -> {
+            AdvancementPointSystem.resolve(server.getAdvancements());
             WarManager.initialize(server);
-            ShinobiScheduler.start();
+            ShinobiScheduler.start(server);
             ShinobiItems.initialize();
             ScoreboardTeamManager.initializeTeams(server);
         });
 
-        // Enforce freeze every server tick so players truly cannot move until selection
-        // Also refresh HUD every 2 ticks for pinned players
+        // Datapack reloads replace advancement holders; re-resolve the point table
+        net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, resourceManager, success) -> {
+            if (success) AdvancementPointSystem.resolve(server.getAdvancements());
+        });
+
+        net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            ShinobiScheduler.stop();
+            WarManager.shutdown();
+        });
+
+        net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            ShinobiProfileRegistry.clear();
+        });
+
+        // Frozen players keep their freeze across respawns (new ServerPlayer instance)
+        // Onboarding players get a fresh inventory on respawn, so re-check their scroll
+        net.fabricmc.fabric.api.entity.event.v1.ServerPlayerEvents.AFTER_RESPAWN.register((oldPlayer, newPlayer, alive) -> {
+            PlayerFreezeManager.reapply(newPlayer);
+            OnboardingSessions.markInventoryChanged(newPlayer);
+        });
+
+        // Scroll upkeep for onboarding players and HUD updates for pinned players
         ServerTickEvents.END_SERVER_TICK.register(server -> {
-            for (ServerPlayer p : server.getPlayerList().getPlayers()) {
-                if (PlayerFreezeManager.isFrozen(p)) {
-                    PlayerFreezeManager.enforceFreeze(p);
-                    
-                    // Auto-respawn village scroll if lost/dropped/destroyed
-                    if (NEED_VILLAGE.contains(p.getUUID())) {
-                        boolean hasScroll = false;
-                        var inv = p.getInventory();
-                        for (int i = 0; i < inv.getContainerSize(); i++) {
-                            if (ShinobiItems.isVillageScroll(inv.getItem(i))) {
-                                hasScroll = true;
-                                break;
-                            }
-                        }
-                        if (!hasScroll) {
-                            var scroll = ShinobiItems.createVillageScroll();
-                            if (!inv.add(scroll)) {
-                                p.drop(scroll, false);
-                            }
-                        }
-                    }
-                }
-            }
-            
-            // Refresh HUD every 2 ticks (0.1 seconds) for better persistence
+            // Scroll upkeep for onboarding players only (no-op when nobody is onboarding)
+            OnboardingSessions.tick(server);
+
+            // Push dirty HUDs, plus a full refresh every 10 seconds as a safety net
             ShinobiScheduler.tickHudRefresh(server);
             // Activate war bypasses after grace periods
             WarManager.tick(server);
+            // Budgeted main-thread jobs (resync sweeps etc.)
+            TickScheduler.tick(server);
         });
     }
 }
@@ -53,6 +53,7 @@ public final class ShinobiClaimBridge {
         
         if (currentBonus != null && currentBonus == desiredLimit) {
             System.out.println("[ShinobiClaimBridge] " + player.getName().getString() + " already has correct limit: " + desiredLimit);
+            ShinobiProfileRegistry.get(player).setClaimLimit(desiredLimit);
             return; // Already set correctly
         }
 
@@ -63,6 +64,7 @@ public final class ShinobiClaimBridge {
         
         if (result == IPlayerConfigAPI.SetResult.SUCCESS) {
             Integer verified = config.getEffective(PlayerConfigOptions.BONUS_CHUNK_CLAIMS);
+            ShinobiProfileRegistry.get(player).setClaimLimit(verified != null ? verified : desiredLimit);
             System.out.println("[ShinobiClaimBridge] ✅ Successfully set claim limit for " + player.getName().getString() + " to " + verified);
             System.out.println("[ShinobiClaimBridge] NOTE: In singleplayer/LAN worlds, OPAC may not enforce these limits properly. Test on a dedicated server for accurate claim limit enforcement.");
         } else {
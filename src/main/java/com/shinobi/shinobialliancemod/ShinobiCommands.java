@@ -1,10 +1,9 @@
 package com.shinobi.shinobialliancemod;
 
 import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
-import net.minecraft.advancements.AdvancementHolder;
-import net.minecraft.advancements.AdvancementProgress;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
 import net.minecraft.commands.arguments.EntityArgument;
@@ -14,7 +13,10 @@ import net.minecraft.server.permissions.Permissions;
 import net.minecraft.server.level.ServerPlayer;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 public class ShinobiCommands {
@@ -65,6 +67,25 @@ public class ShinobiCommands {
                     .executes(context -> resetPlayer(context))
                 )
             )
+            .then(Commands.literal("stats")
+                .requires(source -> source.permissions().hasPermission(Permissions.COMMANDS_ADMIN))
+                .executes(ctx -> showStats(ctx))
+            )
+            .then(Commands.literal("benchmark")
+                .requires(source -> source.permissions().hasPermission(Permissions.COMMANDS_ADMIN))
+                .then(Commands.literal("claims")
+                    .executes(ctx -> benchmarkClaims(ctx, 20000))
+                    .then(Commands.argument("positions", IntegerArgumentType.integer(1, 1000000))
+                        .executes(ctx -> benchmarkClaims(ctx, IntegerArgumentType.getInteger(ctx, "positions")))
+                    )
+                )
+                .then(Commands.literal("wars")
+                    .executes(ctx -> benchmarkWars(ctx, 1000000))
+                    .then(Commands.argument("calls", IntegerArgumentType.integer(1000, 100000000))
+                        .executes(ctx -> benchmarkWars(ctx, IntegerArgumentType.getInteger(ctx, "calls")))
+                    )
+                )
+            )
         );
 
         // Village selection commands
@@ -428,7 +449,6 @@ public class ShinobiCommands {
             LuckPermsService.assignVillage(player, village, server);
             ScoreboardTeamManager.assignPlayerRankTeam(player, village, Rank.GENIN, server);
             PlayerPointsManager.setRank(player, Rank.GENIN);
-            ShinobiClaimBridge.applyClaimLimits(player);
 
             // Mark selected
             ShinobiAllianceMod.clearPlayerCache(player.getUUID());
@@ -453,6 +473,57 @@ public class ShinobiCommands {
             return 0;
         }
     }
+    /** /shinobi stats - internal queue/latency metrics for admins */
+    private static int showStats(CommandContext<CommandSourceStack> context) {
+        CommandSourceStack source = context.getSource();
+        source.sendSuccess(() -> Component.literal("§6Shinobi Stats:"), false);
+        source.sendSuccess(() -> Component.literal("§ePlayer data: §f" + PlayerDataManager.getStatsLine()), false);
+        source.sendSuccess(() -> Component.literal("§ePermissions: §f" + PermissionMutationQueue.getStatsLine()), false);
+        source.sendSuccess(() -> Component.literal("§eScheduler: §f" + TickScheduler.getStatsLine()), false);
+        source.sendSuccess(() -> Component.literal("§eResync: §f" + ResyncPipeline.getStatsLine()), false);
+        source.sendSuccess(() -> Component.literal("§eHUD: §f" + HudChannel.getStatsLine()), false);
+        source.sendSuccess(() -> Component.literal("§eWars: §f" + WarJournal.getStatsLine()), false);
+        source.sendSuccess(() -> Component.literal("§eNames: §f" + PlayerNameCache.getStatsLine()), false);
+        return 1;
+    }
+
+    /**
+     * Compare the streaming claims reader with the old tree reader on a synthetic file (off-thread).
+     */
+    private static int benchmarkClaims(CommandContext<CommandSourceStack> context, int positions) {
+        CommandSourceStack source = context.getSource();
+        MinecraftServer server = source.getServer();
+        source.sendSuccess(() -> Component.literal("§eBenchmarking claim readers with " + positions + " positions..."), false);
+        TickScheduler.offload(server, () -> {
+            try {
+                return "§a" + ClaimsBenchmark.run(positions);
+            } catch (java.io.IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        }, (result, error) -> sendBenchmarkResult(source, result, error));
+        return 1;
+    }
+
+    /**
+     * Compare per-call cost of the old string-keyed war lookup with the War index (off-thread).
+     */
+    private static int benchmarkWars(CommandContext<CommandSourceStack> context, int calls) {
+        CommandSourceStack source = context.getSource();
+        MinecraftServer server = source.getServer();
+        source.sendSuccess(() -> Component.literal("§eBenchmarking war lookups with " + calls + " calls..."), false);
+        TickScheduler.offload(server, () -> "§a" + WarBenchmark.run(calls),
+            (result, error) -> sendBenchmarkResult(source, result, error));
+        return 1;
+    }
+
+    private static void sendBenchmarkResult(CommandSourceStack source, String result, Throwable error) {
+        if (error != null) {
+            source.sendFailure(Component.literal("§cBenchmark failed: " + error.getMessage()));
+        } else {
+            source.sendSuccess(() -> Component.literal(result), false);
+        }
+    }
+
     private static int pinHud(CommandContext<CommandSourceStack> context) {
         try { 
             ServerPlayer p = context.getSource().getPlayerOrException(); 
@@ -474,12 +545,12 @@ public class ShinobiCommands {
         } catch (Exception e) { return 0; }
     }
     private static int resyncSelf(CommandContext<CommandSourceStack> context) {
-        try { ServerPlayer p = context.getSource().getPlayerOrException(); LuckPermsService.syncPlayerGroups(p, context.getSource().getServer()); ShinobiClaimBridge.applyClaimLimits(p); p.sendSystemMessage(Component.literal("§aResync complete.")); return 1; } catch (Exception e) { return 0; }
+        try { ServerPlayer p = context.getSource().getPlayerOrException(); LuckPermsService.syncPlayerGroups(p, context.getSource().getServer(), true); p.sendSystemMessage(Component.literal("§aResync complete.")); return 1; } catch (Exception e) { return 0; }
     }
     private static int resyncOther(CommandContext<CommandSourceStack> context) {
         CommandSourceStack src = context.getSource();
         if (!src.permissions().hasPermission(Permissions.COMMANDS_ADMIN)) { src.sendFailure(Component.literal("§cRequires OP level 3")); return 0; }
-        try { ServerPlayer target = EntityArgument.getPlayer(context, "player"); LuckPermsService.syncPlayerGroups(target, src.getServer()); ShinobiClaimBridge.applyClaimLimits(target); src.sendSuccess(() -> Component.literal("§aResync complete for " + target.getName().getString()), false); return 1; } catch (Exception e) { src.sendFailure(Component.literal("§c" + e.getMessage())); return 0; }
+        try { ServerPlayer target = EntityArgument.getPlayer(context, "player"); LuckPermsService.syncPlayerGroups(target, src.getServer(), true); src.sendSuccess(() -> Component.literal("§aResync complete for " + target.getName().getString()), false); return 1; } catch (Exception e) { src.sendFailure(Component.literal("§c" + e.getMessage())); return 0; }
     }
 
     /**
@@ -536,7 +607,8 @@ public class ShinobiCommands {
             CommandSourceStack source = context.getSource();
             MinecraftServer server = source.getServer();
             
-            var wars = WarManager.getAllWars();
+            WarView wars = WarManager.view();
+            long now = System.currentTimeMillis();
             
             if (wars.isEmpty()) {
                 source.sendSuccess(() -> Component.literal("🕊 There are no active wars."), false);
@@ -544,14 +616,15 @@ public class ShinobiCommands {
             }
             
             source.sendSuccess(() -> Component.literal("§6⚔ Active Wars:"), false);
+            Map<UUID, String> names = getListingNames(wars, server);
             
-            for (var war : wars) {
-                String attackerName = getPlayerNameFromUUID(war.attackerUUID, server);
-                String defenderName = getPlayerNameFromUUID(war.defenderUUID, server);
+            for (WarView.WarState war : wars.wars()) {
+                String attackerName = names.get(war.attacker());
+                String defenderName = names.get(war.defender());
                 
                 // Get ranks for display
-                ServerPlayer attacker = server.getPlayerList().getPlayer(war.attackerUUID);
-                ServerPlayer defender = server.getPlayerList().getPlayer(war.defenderUUID);
+                ServerPlayer attacker = server.getPlayerList().getPlayer(war.attacker());
+                ServerPlayer defender = server.getPlayerList().getPlayer(war.defender());
                 
                 String attackerDisplay = attacker != null ? 
                     PlayerPointsManager.getRank(attacker).getDisplayName() + " " + attackerName : 
@@ -562,12 +635,12 @@ public class ShinobiCommands {
                     "Kage " + defenderName;
 
                 // Grace remaining
-                long remainingMs = getWarGraceRemaining(war.attackerUUID, war.defenderUUID);
+                long remainingMs = war.graceRemaining(now);
                 String graceText = remainingMs > 0 ? (" §7(Grace: " + (remainingMs / 60000) + " min left)") : " §a(Active)";
                 source.sendSuccess(() -> Component.literal("§c  • §6" + attackerDisplay + " §cvs §6" + defenderDisplay + graceText), false);
 
                 // Allies list with their grace
-                var allies = getWarAlliesWithNames(war.attackerUUID, war.defenderUUID, server);
+                var allies = getWarAlliesWithNames(war, now, names);
                 if (!allies.isEmpty()) {
                     for (String line : allies) {
                         source.sendSuccess(() -> Component.literal("    " + line), false);
@@ -596,7 +669,8 @@ public class ShinobiCommands {
             CommandSourceStack source = context.getSource();
             MinecraftServer server = source.getServer();
             
-            var wars = WarManager.getAllWars();
+            WarView wars = WarManager.view();
+            long now = System.currentTimeMillis();
             
             if (wars.isEmpty()) {
                 source.sendSuccess(() -> Component.literal("🕊 There are no active wars."), false);
@@ -604,14 +678,15 @@ public class ShinobiCommands {
             }
             
             source.sendSuccess(() -> Component.literal("§6⚔ Active Wars:"), false);
+            Map<UUID, String> names = getListingNames(wars, server);
             
-            for (var war : wars) {
-                String attackerName = getPlayerNameFromUUID(war.attackerUUID, server);
-                String defenderName = getPlayerNameFromUUID(war.defenderUUID, server);
+            for (WarView.WarState war : wars.wars()) {
+                String attackerName = names.get(war.attacker());
+                String defenderName = names.get(war.defender());
                 
                 // Get ranks for display
-                ServerPlayer attacker = server.getPlayerList().getPlayer(war.attackerUUID);
-                ServerPlayer defender = server.getPlayerList().getPlayer(war.defenderUUID);
+                ServerPlayer attacker = server.getPlayerList().getPlayer(war.attacker());
+                ServerPlayer defender = server.getPlayerList().getPlayer(war.defender());
                 
                 String attackerDisplay = attacker != null ? 
                     PlayerPointsManager.getRank(attacker).getDisplayName() + " " + attackerName : 
@@ -622,12 +697,12 @@ public class ShinobiCommands {
                     "Kage " + defenderName;
                 
                 // Grace remaining
-                long remainingMs = getWarGraceRemaining(war.attackerUUID, war.defenderUUID);
+                long remainingMs = war.graceRemaining(now);
                 String graceText = remainingMs > 0 ? (" §7(Grace: " + (remainingMs / 60000) + " min left)") : " §a(Active)";
                 source.sendSuccess(() -> Component.literal("  §c• §6" + attackerDisplay + " §cvs §6" + defenderDisplay + graceText), false);
                 
                 // Allies list with their grace and names
-                var allies = getWarAlliesWithNames(war.attackerUUID, war.defenderUUID, server);
+                var allies = getWarAlliesWithNames(war, now, names);
                 if (!allies.isEmpty()) {
                     for (String line : allies) {
                         source.sendSuccess(() -> Component.literal("    " + line), false);
@@ -668,7 +743,7 @@ public class ShinobiCommands {
                 return 0;
             }
             
-            var wars = WarManager.getWarsForPlayer(targetUUID);
+            var wars = WarManager.view().warsForKage(targetUUID);
             
             if (wars.isEmpty()) {
                 source.sendSuccess(() -> Component.literal("🕊 §6" + targetName + " §ris not involved in any wars."), false);
@@ -676,11 +751,14 @@ public class ShinobiCommands {
             }
             
             // Collect opponent names
+            List<UUID> opponentUUIDs = new ArrayList<>();
+            for (WarView.WarState war : wars) {
+                opponentUUIDs.add(war.opponentOf(targetUUID));
+            }
+            Map<UUID, String> names = PlayerNameCache.names(opponentUUIDs, server);
             List<String> opponents = new ArrayList<>();
-            for (var war : wars) {
-                UUID opponentUUID = war.attackerUUID.equals(targetUUID) ? war.defenderUUID : war.attackerUUID;
-                String opponentName = getPlayerNameFromUUID(opponentUUID, server);
-                opponents.add(opponentName);
+            for (UUID opponentUUID : opponentUUIDs) {
+                opponents.add(names.get(opponentUUID));
             }
             
             String opponentList = String.join(", ", opponents);
@@ -695,123 +773,30 @@ public class ShinobiCommands {
     }
 
     /**
-     * Helper: Get player name from UUID
+     * Names of every Kage and ally in the listing, resolved in one pass.
      */
-    private static String getPlayerNameFromUUID(UUID uuid, MinecraftServer server) {
-        ServerPlayer player = server.getPlayerList().getPlayer(uuid);
-        if (player != null) {
-            return player.getName().getString();
+    private static Map<UUID, String> getListingNames(WarView wars, MinecraftServer server) {
+        Set<UUID> uuids = new HashSet<>();
+        for (WarView.WarState war : wars.wars()) {
+            uuids.add(war.attacker());
+            uuids.add(war.defender());
+            for (WarView.AllyState ally : war.allies()) uuids.add(ally.uuid());
         }
-        return uuid.toString();
-    }
-
-    private static long getWarGraceRemaining(UUID attacker, UUID defender) {
-        try {
-            java.lang.reflect.Method isGraceOver = WarManager.class.getDeclaredMethod("isGracePeriodOver", java.util.UUID.class, java.util.UUID.class);
-            isGraceOver.setAccessible(true);
-            boolean over = (boolean) isGraceOver.invoke(null, attacker, defender);
-            if (over) return 0;
-            // Access start time via warStartTimes (not publicly exposed); show approximate remaining
-            java.lang.reflect.Field warStartTimes = WarManager.class.getDeclaredField("warStartTimes");
-            warStartTimes.setAccessible(true);
-            @SuppressWarnings("unchecked") java.util.Map<String, Long> starts = (java.util.Map<String, Long>) warStartTimes.get(null);
-            String key = attacker.toString() + ":" + defender.toString();
-            Long start = starts.get(key);
-            if (start == null) return 0;
-            long elapsed = System.currentTimeMillis() - start;
-            long total = 60L * 60L * 1000L;
-            return Math.max(0, total - elapsed);
-        } catch (Throwable ignored) {}
-        return 0;
+        return PlayerNameCache.names(uuids, server);
     }
 
-    private static java.util.List<String> getWarAllies(UUID attacker, UUID defender) {
+    private static java.util.List<String> getWarAlliesWithNames(WarView.WarState war, long now, Map<UUID, String> names) {
         java.util.List<String> lines = new java.util.ArrayList<>();
-        try {
-            java.lang.reflect.Field warAlliesField = WarManager.class.getDeclaredField("warAllies");
-            warAlliesField.setAccessible(true);
-            @SuppressWarnings("unchecked") java.util.Map<String, Object> warAllies = (java.util.Map<String, Object>) warAlliesField.get(null);
-            String key = attacker.toString() + ":" + defender.toString();
-            Object wa = warAllies.get(key);
-            if (wa == null) return lines;
-            java.lang.reflect.Field attackerSide = wa.getClass().getDeclaredField("attackerSide");
-            java.lang.reflect.Field defenderSide = wa.getClass().getDeclaredField("defenderSide");
-            attackerSide.setAccessible(true);
-            defenderSide.setAccessible(true);
-            @SuppressWarnings("unchecked") java.util.Set<java.util.UUID> aSide = (java.util.Set<java.util.UUID>) attackerSide.get(wa);
-            @SuppressWarnings("unchecked") java.util.Set<java.util.UUID> dSide = (java.util.Set<java.util.UUID>) defenderSide.get(wa);
-
-            java.lang.reflect.Field allyGraceStartsField = WarManager.class.getDeclaredField("allyGraceStarts");
-            allyGraceStartsField.setAccessible(true);
-            @SuppressWarnings("unchecked") java.util.Map<String, java.util.Map<java.util.UUID, Long>> allyStarts = (java.util.Map<String, java.util.Map<java.util.UUID, Long>>) allyGraceStartsField.get(null);
-            java.util.Map<java.util.UUID, Long> map = allyStarts.get(key);
-
-            java.util.function.Function<java.util.UUID, String> format = (uuid) -> {
-                long remain = 0;
-                if (map != null && map.containsKey(uuid)) {
-                    Long start = map.get(uuid);
-                    if (start != null) {
-                        long elapsed = System.currentTimeMillis() - start;
-                        long total = 60L * 60L * 1000L;
-                        remain = Math.max(0, total - elapsed);
-                    } else {
-                        remain = totalWaitingText();
-                    }
-                }
-                return "§7- Ally §f" + uuid.toString().substring(0, 8) + (remain > 0 ? (" §7(Ally grace: " + (remain / 60000) + "m)") : " §a(active)");
-            };
-
-            for (java.util.UUID u : aSide) lines.add(format.apply(u));
-            for (java.util.UUID u : dSide) lines.add(format.apply(u));
-        } catch (Throwable ignored) {}
+        for (WarView.AllyState ally : war.allies()) {
+            lines.add(formatAllyLine(names.get(ally.uuid()), war.allyGraceRemaining(ally, now)));
+        }
         return lines;
     }
 
-    private static java.util.List<String> getWarAlliesWithNames(UUID attacker, UUID defender, MinecraftServer server) {
-        java.util.List<String> lines = new java.util.ArrayList<>();
-        try {
-            java.lang.reflect.Field warAlliesField = WarManager.class.getDeclaredField("warAllies");
-            warAlliesField.setAccessible(true);
-            @SuppressWarnings("unchecked") java.util.Map<String, Object> warAllies = (java.util.Map<String, Object>) warAlliesField.get(null);
-            String key = attacker.toString() + ":" + defender.toString();
-            Object wa = warAllies.get(key);
-            if (wa == null) return lines;
-            java.lang.reflect.Field attackerSide = wa.getClass().getDeclaredField("attackerSide");
-            java.lang.reflect.Field defenderSide = wa.getClass().getDeclaredField("defenderSide");
-            attackerSide.setAccessible(true);
-            defenderSide.setAccessible(true);
-            @SuppressWarnings("unchecked") java.util.Set<java.util.UUID> aSide = (java.util.Set<java.util.UUID>) attackerSide.get(wa);
-            @SuppressWarnings("unchecked") java.util.Set<java.util.UUID> dSide = (java.util.Set<java.util.UUID>) defenderSide.get(wa);
-
-            java.lang.reflect.Field allyGraceStartsField = WarManager.class.getDeclaredField("allyGraceStarts");
-            allyGraceStartsField.setAccessible(true);
-            @SuppressWarnings("unchecked") java.util.Map<String, java.util.Map<java.util.UUID, Long>> allyStarts = (java.util.Map<String, java.util.Map<java.util.UUID, Long>>) allyGraceStartsField.get(null);
-            java.util.Map<java.util.UUID, Long> map = allyStarts.get(key);
-
-            java.util.function.Function<java.util.UUID, String> format = (uuid) -> {
-                String allyName = getPlayerNameFromUUID(uuid, server);
-                long remain = 0;
-                if (map != null && map.containsKey(uuid)) {
-                    Long start = map.get(uuid);
-                    if (start != null) {
-                        long elapsed = System.currentTimeMillis() - start;
-                        long total = 60L * 60L * 1000L;
-                        remain = Math.max(0, total - elapsed);
-                    } else {
-                        remain = totalWaitingText();
-                    }
-                }
-                return "§7- Ally §f" + allyName + (remain > 0 ? (" §7(Ally grace: " + (remain / 60000) + "m)") : " §a(active)");
-            };
-
-            for (java.util.UUID u : aSide) lines.add(format.apply(u));
-            for (java.util.UUID u : dSide) lines.add(format.apply(u));
-        } catch (Throwable ignored) {}
-        return lines;
+    private static String formatAllyLine(String allyName, long remain) {
+        return "§7- Ally §f" + allyName + (remain > 0 ? (" §7(Ally grace: " + (remain / 60000) + "m)") : " §a(active)");
     }
 
-    private static long totalWaitingText() { return 60L * 60L * 1000L; }
-
     /**
      * Check and update player's rank based on their completed advancements
      */
@@ -820,33 +805,12 @@ public class ShinobiCommands {
             ServerPlayer player = context.getSource().getPlayerOrException();
             MinecraftServer server = context.getSource().getServer();
             
-            // Scan all advancements and award points
-            int totalPoints = 0;
-            int newAdvancements = 0;
-            
-            for (var entry : server.getAdvancements().getAllAdvancements()) {
-                AdvancementHolder advancement = entry;
-                
-                // Check if advancement is tracked in our system
-                if (AdvancementPointSystem.isTracked(advancement)) {
-                    // Check if player has completed this advancement
-                    var progress = player.getAdvancements().getOrStartProgress(advancement);
-                    
-                    if (progress.isDone()) {
-                        int points = AdvancementPointSystem.getPoints(advancement);
-                        totalPoints += points;
-                        newAdvancements++;
-                    }
-                }
-            }
-            
-            // Update player's points
-            PlayerPointsManager.setPoints(player, totalPoints);
-            
-            // Check for rank promotion
+            // Full recount of tracked advancements (points are otherwise kept current as advancements are earned)
             Rank oldRank = PlayerPointsManager.getRank(player);
-            boolean rankChanged = RankManager.checkAndUpdateRank(player, server);
+            int newAdvancements = PlayerPointsManager.recalcPointsForPlayer(player);
+            int totalPoints = PlayerPointsManager.getPoints(player);
             Rank newRank = PlayerPointsManager.getRank(player);
+            boolean rankChanged = newRank != oldRank;
             Village village = RankManager.getPlayerVillage(player, server);
             
             // Send feedback
@@ -44,16 +44,12 @@ public class ShinobiItems {
     }
     
     /**
-     * Check if an ItemStack is a village scroll.
+     * Check if an ItemStack is a village scroll. Reads the custom data in place (no tag copy).
      */
     public static boolean isVillageScroll(ItemStack stack) {
-        if (stack.getItem() != Items.WRITTEN_BOOK) return false;
+        if (!stack.is(Items.WRITTEN_BOOK)) return false;
         CustomData customData = stack.get(DataComponents.CUSTOM_DATA);
-        if (customData != null) {
-            CompoundTag nbt = customData.copyTag();
-            return nbt.contains(SHINOBI_SCROLL_TAG);
-        }
-        return false;
+        return customData != null && customData.contains(SHINOBI_SCROLL_TAG);
     }
     
     /**
@@ -0,0 +1,89 @@
+package com.shinobi.shinobialliancemod;
+
+import java.util.UUID;
+
+/**
+ * In-memory Shinobi state for a single player.
+ * Owned by ShinobiProfileRegistry; managers read these fields instead of
+ * re-deriving village/rank/points from scoreboard teams and objectives.
+ * Any change to a HUD-visible field marks the player's HUD dirty.
+ */
+public final class ShinobiProfile {
+    private final UUID uuid;
+    private String name;
+    private Village village;        // null until a village is chosen
+    private Rank rank = Rank.GENIN;
+    private int points = 0;
+    private int claimedChunks = 0;
+    private int claimLimit = 0;
+
+    ShinobiProfile(UUID uuid, String name) {
+        this.uuid = uuid;
+        this.name = name;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Village getVillage() {
+        return village;
+    }
+
+    public Rank getRank() {
+        return rank;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public int getClaimedChunks() {
+        return claimedChunks;
+    }
+
+    public int getClaimLimit() {
+        return claimLimit;
+    }
+
+    // Mutators are package-private: only the registry and managers in this package write state
+
+    void setName(String name) {
+        this.name = name;
+    }
+
+    void setVillage(Village village) {
+        if (this.village == village) return;
+        this.village = village;
+        ShinobiScheduler.markHudDirty(uuid);
+    }
+
+    void setRank(Rank rank) {
+        Rank value = rank != null ? rank : Rank.GENIN;
+        if (this.rank == value) return;
+        this.rank = value;
+        ShinobiScheduler.markHudDirty(uuid);
+    }
+
+    void setPoints(int points) {
+        if (this.points == points) return;
+        this.points = points;
+        ShinobiScheduler.markHudDirty(uuid);
+    }
+
+    void setClaimedChunks(int claimedChunks) {
+        if (this.claimedChunks == claimedChunks) return;
+        this.claimedChunks = claimedChunks;
+        ShinobiScheduler.markHudDirty(uuid);
+    }
+
+    void setClaimLimit(int claimLimit) {
+        if (this.claimLimit == claimLimit) return;
+        this.claimLimit = claimLimit;
+        ShinobiScheduler.markHudDirty(uuid);
+    }
+}
@@ -0,0 +1,90 @@
+package com.shinobi.shinobialliancemod;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.scores.PlayerTeam;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-UUID registry of ShinobiProfile objects - the single source of truth for
+ * village, rank, points and claim counts while a player is online.
+ *
+ * Profiles are seeded once from the scoreboard on join. After that, writes go
+ * through PlayerPointsManager / ScoreboardTeamManager, which only touch the
+ * vanilla scoreboard when the cached value actually changes.
+ */
+public final class ShinobiProfileRegistry {
+    private static final Map<UUID, ShinobiProfile> PROFILES = new ConcurrentHashMap<>();
+
+    private ShinobiProfileRegistry() {}
+
+    /**
+     * Get a player's profile, loading it from the scoreboard if it is not cached yet.
+     */
+    public static ShinobiProfile get(ServerPlayer player) {
+        ShinobiProfile profile = PROFILES.get(player.getUUID());
+        return profile != null ? profile : load(player);
+    }
+
+    /**
+     * Get a cached profile without loading. Returns null if the player has no profile in memory.
+     */
+    public static ShinobiProfile getIfLoaded(UUID playerUUID) {
+        return PROFILES.get(playerUUID);
+    }
+
+    /**
+     * (Re)load a player's profile from the scoreboard. Called on join.
+     */
+    public static ShinobiProfile load(ServerPlayer player) {
+        ShinobiProfile profile = new ShinobiProfile(player.getUUID(), player.getName().getString());
+        MinecraftServer server = player.level().getServer();
+        if (server != null) {
+            PlayerTeam team = server.getScoreboard().getPlayersTeam(player.getScoreboardName());
+            profile.setVillage(team != null ? villageFromTeamName(team.getName()) : null);
+            profile.setPoints(PlayerPointsManager.readPointsFromScoreboard(player, server));
+            profile.setRank(PlayerPointsManager.readRankFromScoreboard(player, server));
+        }
+        PROFILES.put(player.getUUID(), profile);
+        return profile;
+    }
+
+    /**
+     * Drop a player's profile from memory (on disconnect).
+     */
+    public static void unload(UUID playerUUID) {
+        PROFILES.remove(playerUUID);
+    }
+
+    /**
+     * Drop all profiles (on server stop).
+     */
+    public static void clear() {
+        PROFILES.clear();
+    }
+
+    /**
+     * All profiles currently in memory.
+     */
+    public static Collection<ShinobiProfile> all() {
+        return Collections.unmodifiableCollection(PROFILES.values());
+    }
+
+    /**
+     * Parse the village out of a team name ("leaf_genin" or legacy "leaf").
+     */
+    static Village villageFromTeamName(String teamName) {
+        for (Village village : Village.values()) {
+            String id = village.getId();
+            if (teamName.equals(id) || (teamName.startsWith(id) && teamName.length() > id.length() && teamName.charAt(id.length()) == '_')) {
+                return village;
+            }
+        }
+        return null;
+    }
+}
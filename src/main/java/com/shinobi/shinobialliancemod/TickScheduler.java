@@ -0,0 +1,173 @@
+package com.shinobi.shinobialliancemod;
+
+import net.minecraft.server.MinecraftServer;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Main-thread job scheduler driven by the server tick.
+ *
+ * Jobs sit in a hashed timer wheel keyed by tick (WHEEL_SIZE slots; longer delays
+ * carry a round counter). Due jobs run at the end of the tick until the per-tick
+ * budget is spent (-Dshinobi.scheduler.budgetMicros, default 2000); whatever is
+ * left carries over to the next tick and is counted as an overrun. Use
+ * scheduleSpread to fan per-player work out over several ticks with jitter.
+ *
+ * Everything except offload() must be called on the server thread. offload() runs a
+ * task on a single background thread shared by every offloaded task (so long jobs
+ * such as the admin benchmarks queue behind each other) and hands the result or the
+ * error back via server.execute.
+ */
+public final class TickScheduler {
+    private static final int WHEEL_SIZE = 512; // power of two
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    static final long BUDGET_NANOS = Math.max(100L, Long.getLong("shinobi.scheduler.budgetMicros", 2000L)) * 1000L;
+
+    private static final class Job {
+        final Runnable task;
+        int rounds;
+
+        Job(Runnable task, int rounds) {
+            this.task = task;
+            this.rounds = rounds;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static final ArrayDeque<Job>[] WHEEL = new ArrayDeque[WHEEL_SIZE];
+    private static final ArrayDeque<Runnable> READY = new ArrayDeque<>();
+    private static long currentTick = 0;
+    private static ExecutorService ioExecutor;
+
+    // Metrics
+    private static long jobsRun = 0;
+    private static long jobsDeferred = 0;
+    private static long overrunTicks = 0;
+    private static long maxTickMicros = 0;
+
+    static {
+        for (int i = 0; i < WHEEL_SIZE; i++) WHEEL[i] = new ArrayDeque<>();
+    }
+
+    private TickScheduler() {}
+
+    /**
+     * Run a task delayTicks from now (0 = at the end of this tick).
+     */
+    public static void schedule(int delayTicks, Runnable task) {
+        int delay = Math.max(0, delayTicks);
+        long due = currentTick + delay;
+        WHEEL[(int) (due & WHEEL_MASK)].add(new Job(task, delay / WHEEL_SIZE));
+    }
+
+    /**
+     * Run a task every periodTicks, first after initialDelayTicks.
+     */
+    public static void scheduleRepeating(int initialDelayTicks, int periodTicks, Runnable task) {
+        int period = Math.max(1, periodTicks);
+        schedule(initialDelayTicks, new Runnable() {
+            @Override
+            public void run() {
+                task.run();
+                schedule(period, this);
+            }
+        });
+    }
+
+    /**
+     * Schedule a job at a random tick in [0, spreadTicks), so per-player work queued
+     * together does not all land on the same tick.
+     */
+    public static void scheduleSpread(int spreadTicks, Runnable task) {
+        schedule(spreadTicks > 1 ? ThreadLocalRandom.current().nextInt(spreadTicks) : 0, task);
+    }
+
+    /**
+     * Run a task on the shared background thread and hand its result, or the error it
+     * threw (result is then null), to onMain on the server thread.
+     */
+    public static <T> void offload(MinecraftServer server, Supplier<T> task, BiConsumer<T, Throwable> onMain) {
+        CompletableFuture.supplyAsync(task, ioExecutor()).whenComplete((result, error) -> {
+            Throwable cause = error instanceof java.util.concurrent.CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause != null) {
+                System.out.println("[ShinobiAllianceMod] ⚠️ Offloaded task failed: " + cause);
+            }
+            server.execute(() -> onMain.accept(result, cause));
+        });
+    }
+
+    private static synchronized ExecutorService ioExecutor() {
+        if (ioExecutor == null || ioExecutor.isShutdown()) {
+            ioExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "ShinobiScheduler-IO");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return ioExecutor;
+    }
+
+    /**
+     * Advance the wheel one tick and run due jobs within the budget. Called at END_SERVER_TICK.
+     */
+    public static void tick(MinecraftServer server) {
+        long start = System.nanoTime();
+
+        Iterator<Job> slot = WHEEL[(int) (currentTick & WHEEL_MASK)].iterator();
+        while (slot.hasNext()) {
+            Job job = slot.next();
+            if (job.rounds == 0) {
+                READY.add(job.task);
+                slot.remove();
+            } else {
+                job.rounds--;
+            }
+        }
+        currentTick++;
+
+        Runnable task;
+        while ((task = READY.poll()) != null) {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                System.out.println("[ShinobiAllianceMod] ❌ Scheduled job failed: " + t);
+                t.printStackTrace();
+            }
+            jobsRun++;
+            if (System.nanoTime() - start >= BUDGET_NANOS && !READY.isEmpty()) {
+                jobsDeferred += READY.size();
+                overrunTicks++;
+                break;
+            }
+        }
+
+        maxTickMicros = Math.max(maxTickMicros, (System.nanoTime() - start) / 1000L);
+    }
+
+    /**
+     * Drop all pending jobs (on server stop).
+     */
+    public static void clear() {
+        for (ArrayDeque<Job> slot : WHEEL) slot.clear();
+        READY.clear();
+        currentTick = 0;
+    }
+
+    public static int getPendingJobs() {
+        int pending = READY.size();
+        for (ArrayDeque<Job> slot : WHEEL) pending += slot.size();
+        return pending;
+    }
+
+    public static String getStatsLine() {
+        return "pending=" + getPendingJobs() + ", run=" + jobsRun + ", deferred=" + jobsDeferred
+            + ", overrunTicks=" + overrunTicks + ", maxTick=" + maxTickMicros + "us, budget=" + (BUDGET_NANOS / 1000L) + "us";
+    }
+}
@@ -0,0 +1,111 @@
+package com.shinobi.shinobialliancemod;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * /shinobi benchmark wars: the war bypass lookup, old string-keyed layout vs the
+ * War index.
+ */
+final class WarBenchmark {
+    private WarBenchmark() {}
+
+    /**
+     * Compare the old string-keyed bypass lookup with the War index on synthetic wars
+     * (off-thread; touches no live war state). Reports time and bytes allocated per call.
+     */
+    static String run(int calls) {
+        int warCount = 64;
+        UUID[] kages = new UUID[warCount * 2];
+        for (int i = 0; i < kages.length; i++) kages[i] = UUID.randomUUID();
+
+        // Old layout: attacker -> defenders, bypass flags keyed by "attacker:defender"
+        Map<UUID, Set<UUID>> legacyWars = new HashMap<>();
+        Set<String> legacyBypass = new HashSet<>();
+        // New layout
+        Map<UUID, Map<UUID, WarManager.War>> byAttacker = new HashMap<>();
+        for (int i = 0; i < warCount; i++) {
+            UUID a = kages[2 * i];
+            UUID d = kages[2 * i + 1];
+            legacyWars.computeIfAbsent(a, k -> new HashSet<>()).add(d);
+            WarManager.War war = new WarManager.War(i, a, d, 0L);
+            war.bypassApplied = (i & 1) == 0;
+            if (war.bypassApplied) legacyBypass.add(WarManager.saveKey(a, d));
+            byAttacker.computeIfAbsent(a, k -> new HashMap<>()).put(d, war);
+        }
+
+        // Mix of hits in both directions and misses
+        int queries = 1024;
+        UUID[] p1 = new UUID[queries];
+        UUID[] p2 = new UUID[queries];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int q = 0; q < queries; q++) {
+            int i = random.nextInt(warCount);
+            int j = random.nextInt(warCount);
+            boolean flip = random.nextBoolean();
+            p1[q] = flip ? kages[2 * i + 1] : kages[2 * i];
+            p2[q] = q % 3 == 0 ? kages[2 * j + 1] : (flip ? kages[2 * i] : kages[2 * i + 1]);
+        }
+
+        int sink = 0;
+        for (int round = 0; round < 20; round++) { // warm up
+            for (int q = 0; q < queries; q++) {
+                if (legacyBypassActive(legacyWars, legacyBypass, p1[q], p2[q])) sink++;
+                WarManager.War war = WarManager.findWarEitherWay(byAttacker, p1[q], p2[q]);
+                if (war != null && war.bypassApplied) sink++;
+            }
+        }
+
+        long legacyBytes0 = allocatedBytes();
+        long t0 = System.nanoTime();
+        for (int n = 0; n < calls; n++) {
+            int q = n & (queries - 1);
+            if (legacyBypassActive(legacyWars, legacyBypass, p1[q], p2[q])) sink++;
+        }
+        long t1 = System.nanoTime();
+        long legacyBytes = allocatedBytes() - legacyBytes0;
+
+        long indexBytes0 = allocatedBytes();
+        long t2 = System.nanoTime();
+        for (int n = 0; n < calls; n++) {
+            int q = n & (queries - 1);
+            WarManager.War war = WarManager.findWarEitherWay(byAttacker, p1[q], p2[q]);
+            if (war != null && war.bypassApplied) sink++;
+        }
+        long t3 = System.nanoTime();
+        long indexBytes = allocatedBytes() - indexBytes0;
+
+        return "calls=" + calls + ", wars=" + warCount
+            + " | string keys: " + ((t1 - t0) / calls) + "ns, " + perCall(legacyBytes, calls) + " B/call"
+            + " | war index: " + ((t3 - t2) / calls) + "ns, " + perCall(indexBytes, calls) + " B/call"
+            + " (hits=" + sink + ")";
+    }
+
+    private static boolean legacyBypassActive(Map<UUID, Set<UUID>> wars, Set<String> bypass, UUID player1, UUID player2) {
+        Set<UUID> direct = wars.get(player1);
+        boolean forward = direct != null && direct.contains(player2);
+        Set<UUID> reverse = wars.get(player2);
+        if (!forward && (reverse == null || !reverse.contains(player1))) return false;
+        UUID attacker = forward ? player1 : player2;
+        UUID defender = forward ? player2 : player1;
+        return bypass.contains(WarManager.saveKey(attacker, defender));
+    }
+
+    private static long allocatedBytes() {
+        if (java.lang.management.ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+            && bean.isThreadAllocatedMemorySupported()) {
+            return bean.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    private static String perCall(long bytes, int calls) {
+        if (bytes < 0) return "n/a";
+        return String.format(Locale.ROOT, "%.2f", (double) bytes / calls);
+    }
+}
@@ -0,0 +1,199 @@
+package com.shinobi.shinobialliancemod;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only journal of war events next to the war snapshot (shinobi_wars.json).
+ *
+ * Each state change is one JSON line in shinobi_wars.journal, serialized on the
+ * server thread and written by a single background thread, so a write costs one
+ * event rather than every war. Once COMPACT_EVERY events have accumulated (and on
+ * shutdown) WarManager hands over a fresh snapshot; the writer replaces the snapshot
+ * file atomically and truncates the journal. Both go through the same thread, so
+ * the journal only ever holds events newer than the snapshot.
+ *
+ * Every event carries a sequence number and the snapshot records the last one it
+ * includes. On load the snapshot is read first and only newer journal events are
+ * replayed on top of it, so a crash between writing a snapshot and truncating the
+ * journal does not apply old events twice. A torn last line from a crash is skipped.
+ */
+final class WarJournal {
+    static final int COMPACT_EVERY = 256;
+    private static final Gson GSON = new Gson();
+
+    enum Type { DECLARE, END, ALLY, PENDING, OPTIN, ALLY_GRACE, VOTE, SKIP_GRACE, BYPASS, ALLY_BYPASS }
+
+    /**
+     * One war event. player/attackerSide/at are only set for the types that need them;
+     * seq is assigned by append.
+     */
+    record Event(long seq, Type type, String attacker, String defender, String player, boolean attackerSide, long at) {
+        static Event of(Type type, WarManager.WarInfo war) {
+            return new Event(0L, type, war.attackerUUID.toString(), war.defenderUUID.toString(), null, false, 0L);
+        }
+
+        static Event of(Type type, WarManager.WarInfo war, long at) {
+            return new Event(0L, type, war.attackerUUID.toString(), war.defenderUUID.toString(), null, false, at);
+        }
+
+        static Event of(Type type, WarManager.WarInfo war, java.util.UUID player, boolean attackerSide, long at) {
+            return new Event(0L, type, war.attackerUUID.toString(), war.defenderUUID.toString(), player.toString(), attackerSide, at);
+        }
+
+        Event withSeq(long seq) {
+            return new Event(seq, type, attacker, defender, player, attackerSide, at);
+        }
+    }
+
+    private static Path snapshotFile;
+    private static Path journalFile;
+    private static ExecutorService writer;
+    private static BufferedWriter out; // writer thread only
+    private static int pending = 0;    // events since the last compaction (server thread)
+    private static long sequence = 0;  // seq of the last event appended or loaded (server thread)
+
+    // Metrics
+    private static long eventsWritten = 0;
+    private static long compactions = 0;
+
+    private WarJournal() {}
+
+    static void open(Path snapshot, Path journal) {
+        snapshotFile = snapshot;
+        journalFile = journal;
+        pending = 0;
+        sequence = 0;
+        if (writer == null || writer.isShutdown()) {
+            writer = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "ShinobiWars-Journal");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Journal events newer than the snapshot's sequence number, oldest first. New
+     * events continue numbering after the highest sequence seen.
+     */
+    static List<Event> readJournal(long snapshotSeq) {
+        sequence = Math.max(sequence, snapshotSeq);
+        List<Event> events = new ArrayList<>();
+        if (journalFile == null || !Files.exists(journalFile)) return events;
+        try {
+            for (String line : Files.readAllLines(journalFile, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) continue;
+                try {
+                    Event event = GSON.fromJson(line, Event.class);
+                    if (event == null || event.type() == null) continue;
+                    sequence = Math.max(sequence, event.seq());
+                    if (event.seq() > snapshotSeq) events.add(event); // older ones are in the snapshot
+                } catch (JsonParseException e) {
+                    System.out.println("[ShinobiAllianceMod] ⚠️ Skipping unreadable war journal line");
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[ShinobiAllianceMod] Failed to read war journal: " + e.getMessage());
+        }
+        pending = events.size();
+        return events;
+    }
+
+    /**
+     * Queue an event for writing. Server thread.
+     */
+    static void append(Event event) {
+        if (writer == null) return;
+        String line = GSON.toJson(event.withSeq(++sequence));
+        pending++;
+        writer.execute(() -> {
+            try {
+                if (out == null) {
+                    out = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                }
+                out.write(line);
+                out.newLine();
+                out.flush();
+                eventsWritten++;
+            } catch (IOException e) {
+                System.err.println("[ShinobiAllianceMod] Failed to append war event: " + e.getMessage());
+            }
+        });
+    }
+
+    /** Sequence number of the last event; a snapshot taken now includes everything up to it. */
+    static long sequence() {
+        return sequence;
+    }
+
+    static boolean shouldCompact() {
+        return pending >= COMPACT_EVERY;
+    }
+
+    /**
+     * Replace the snapshot with snapshotJson (state as of now, built on the server
+     * thread and stamped with sequence()) and truncate the journal.
+     */
+    static void compact(String snapshotJson) {
+        if (writer == null) return;
+        pending = 0;
+        writer.execute(() -> {
+            try {
+                Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+                Files.writeString(tmp, snapshotJson, StandardCharsets.UTF_8);
+                Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                if (out != null) {
+                    out.close();
+                    out = null;
+                }
+                Files.deleteIfExists(journalFile);
+                compactions++;
+            } catch (IOException e) {
+                // Journal is kept; it is replayed on top of the previous snapshot
+                System.err.println("[ShinobiAllianceMod] Failed to compact war journal: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Finish pending writes and stop the writer thread.
+     */
+    static void close() {
+        if (writer == null) return;
+        writer.execute(() -> {
+            try {
+                if (out != null) out.close();
+            } catch (IOException ignored) {
+            }
+            out = null;
+        });
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                System.out.println("[ShinobiAllianceMod] ⚠️ War journal writer did not finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    static String getStatsLine() {
+        return "journal=" + pending + " pending, written=" + eventsWritten + ", compactions=" + compactions;
+    }
+}
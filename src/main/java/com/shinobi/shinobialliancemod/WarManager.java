@@ -3,6 +3,9 @@ package com.shinobi.shinobialliancemod;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
@@ -17,34 +20,75 @@ import java.util.stream.Collectors;
 /**
  * Updated War System - Multiple wars, player-based declarations
  * Wars are tracked between individual Kage players (by UUID)
+ *
+ * Each war is one War object holding its grace timer, bypass state, allies, pending
+ * invites, ally grace times and bypass votes. Wars are looked up by attacker then
+ * defender UUID (no string keys) or by their compact int id.
+ *
+ * Persistence: shinobi_wars.json holds a full snapshot, and every change after it is
+ * appended to a journal off-thread (see WarJournal); load replays the journal on top
+ * of the snapshot.
  */
 public class WarManager {
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
     private static final long GRACE_PERIOD_MILLIS = 60L * 60L * 1000L; // 1 hour
-    private static final Map<UUID, Set<UUID>> activeWars = new HashMap<>(); // attackerUUID -> Set of defenderUUIDs
-    private static final Map<String, Long> warStartTimes = new HashMap<>(); // warKey -> epoch millis declared
-    private static final Set<String> appliedBypass = new HashSet<>(); // warKey where bypass already applied
-    // Allies per war key attacker:defender (attacker side allies & defender side allies)
-    private static final Map<String, WarAllies> warAllies = new HashMap<>();
-    // Ally-specific grace starts: warKey -> (allyUUID -> epoch millis when ally became eligible)
-    private static final Map<String, Map<UUID, Long>> allyGraceStarts = new HashMap<>();
-    // Pending allies needing opt-in per side
-    private static final Map<String, PendingAllies> pendingAllies = new HashMap<>();
-    // Allies who have already been granted bypass/permissions per war key
-    private static final Map<String, Set<UUID>> appliedAllyBypass = new HashMap<>();
-    // Grace bypass votes per war key; both Kage must agree
-    private static final Map<String, Set<UUID>> bypassVotes = new HashMap<>();
+    // attackerUUID -> (defenderUUID -> war)
+    private static final Map<UUID, Map<UUID, War>> warsByAttacker = new HashMap<>();
+    private static final Int2ObjectOpenHashMap<War> warsById = new Int2ObjectOpenHashMap<>();
+    private static int nextWarId = 1;
+    // Grace and ally-grace deadlines, earliest first; tick() only looks at the head
+    private static final PriorityQueue<Deadline> deadlines = new PriorityQueue<>(Comparator.comparingLong(Deadline::due));
+    private static final long RETRY_MILLIS = 5000L; // re-check when activation failed with everyone online
+    // Participant index: player -> wars they take part in, with a bitmask of their roles
+    private static final int ROLE_ATTACKER = 1;
+    private static final int ROLE_DEFENDER = 1 << 1;
+    private static final int ROLE_ALLY = 1 << 2;
+    private static final int ROLE_PENDING = 1 << 3;
+    private static final int ROLE_KAGE = ROLE_ATTACKER | ROLE_DEFENDER;
+    private static final Map<UUID, Reference2IntOpenHashMap<War>> participants = new HashMap<>();
     private static Path warDataFile;
+    private static final int SNAPSHOT_VERSION = 2;
+
+    // Published read-only copy of the state above; replaced on every change
+    private static volatile WarView view = WarView.EMPTY;
+    private static long loadedSeq = 0; // last journal event included in the loaded snapshot
 
     /**
      * Initialize war system and load persisted data
      */
     public static void initialize(MinecraftServer server) {
         warDataFile = server.getServerDirectory().resolve("shinobi_wars.json");
-        loadWars();
+        WarJournal.open(warDataFile, server.getServerDirectory().resolve("shinobi_wars.journal"));
+        boolean current = loadWars();
+        List<WarJournal.Event> events = WarJournal.readJournal(loadedSeq);
+        for (WarJournal.Event event : events) {
+            try {
+                replay(event);
+            } catch (IllegalArgumentException e) {
+                System.out.println("[ShinobiAllianceMod] ⚠️ Skipping bad war event " + event.type() + ": " + e.getMessage());
+            }
+        }
+        if (!events.isEmpty()) {
+            System.out.println("[ShinobiAllianceMod] Replayed " + events.size() + " war events");
+        }
+        // Fold the journal (or an older file format) into a fresh snapshot
+        if (!events.isEmpty() || !current) WarJournal.compact(snapshotJson());
+        publish();
         System.out.println("[ShinobiAllianceMod] War system initialized");
     }
 
+    /**
+     * Write a final snapshot and stop the journal writer. Called on server stop.
+     */
+    public static void shutdown() {
+        if (warDataFile == null) return;
+        WarJournal.compact(snapshotJson());
+        WarJournal.close();
+        clearWars();
+        view = WarView.EMPTY;
+        warDataFile = null;
+    }
+
     /**
      * Declare war from one Kage to another
      * @param attacker The attacking Kage
@@ -54,21 +98,21 @@ public class WarManager {
      */
     public static boolean declareWar(ServerPlayer attacker, UUID defenderUUID, MinecraftServer server) {
         UUID attackerUUID = attacker.getUUID();
-        
+
         // Get defender's current name
         String defenderName = getPlayerNameFromUUID(defenderUUID, server);
         if (defenderName == null) {
             attacker.sendSystemMessage(Component.literal("§cTarget player not found!"));
             return false;
         }
-        
+
         // Validate attacker is Kage
         Rank attackerRank = PlayerPointsManager.getRank(attacker);
         if (attackerRank != Rank.KAGE) {
             attacker.sendSystemMessage(Component.literal("§cOnly Kages can declare war!"));
             return false;
         }
-        
+
         // Validate defender is Kage
         ServerPlayer defender = server.getPlayerList().getPlayer(defenderUUID);
         Rank defenderRank;
@@ -80,51 +124,47 @@ public class WarManager {
             attacker.sendSystemMessage(Component.literal("§cTarget player must be online and have Kage rank!"));
             return false;
         }
-        
+
         if (defenderRank != Rank.KAGE) {
             attacker.sendSystemMessage(Component.literal("§cYou can only declare war on other Kages!"));
             return false;
         }
-        
+
         // Check if war already exists
         if (isAtWar(attackerUUID, defenderUUID)) {
             attacker.sendSystemMessage(Component.literal("§cYou are already at war with " + defenderName + "!"));
             return false;
         }
-        
+
         // Prevent self-war
         if (attackerUUID.equals(defenderUUID)) {
             attacker.sendSystemMessage(Component.literal("§cYou cannot declare war on yourself!"));
             return false;
         }
-        
+
         // Add war to active wars
-        activeWars.computeIfAbsent(attackerUUID, k -> new HashSet<>()).add(defenderUUID);
-        String key = warKey(attackerUUID, defenderUUID);
-        warAllies.computeIfAbsent(key, k -> new WarAllies());
-        warStartTimes.put(key, System.currentTimeMillis());
-        appliedBypass.remove(key);
-
-        // Save wars to disk (includes grace timer)
-        saveWars();
-        
+        War war = addWar(attackerUUID, defenderUUID, System.currentTimeMillis());
+
+        // Journal the war (includes grace timer)
+        record(war, WarJournal.Event.of(WarJournal.Type.DECLARE, war, war.startMillis));
+
         // Get villages and ranks for broadcast
         Village attackerVillage = getPlayerVillage(attacker, server);
         Village defenderVillage = getPlayerVillage(defender, server);
-        
+
         String attackerDisplay = formatKageDisplay(attacker, attackerVillage);
         String defenderDisplay = formatKageDisplay(defender, defenderVillage);
-        
+
         // Broadcast war declaration with grace period info
         Component message = Component.literal("⚔ " + attackerDisplay + " §rhas declared war on " + defenderDisplay + "§r!")
             .append(Component.literal(" §7(Claims bypass unlocks in 60 minutes when both Kage are online.)"));
         server.getPlayerList().broadcastSystemMessage(message, false);
-        
-        System.out.println("[ShinobiAllianceMod] War declared: " + attacker.getName().getString() + 
+
+        System.out.println("[ShinobiAllianceMod] War declared: " + attacker.getName().getString() +
             " (" + attackerUUID + ") vs " + defenderName + " (" + defenderUUID + ")");
         // Auto-register party members: non-Kage auto grouped; Kage must opt-in
-        autoRegisterPartyMembers(attacker, defender, server);
-        
+        autoRegisterPartyMembers(attacker, defender, war, server);
+
         return true;
     }
 
@@ -132,41 +172,30 @@ public class WarManager {
      * End a war between two Kages
      */
     public static boolean endWar(UUID attackerUUID, UUID defenderUUID, MinecraftServer server) {
-        if (!isAtWar(attackerUUID, defenderUUID)) {
+        War war = findWar(attackerUUID, defenderUUID);
+        if (war == null) {
             return false;
         }
-        
+
         // Remove war
-        Set<UUID> defenders = activeWars.get(attackerUUID);
-        if (defenders != null) {
-            defenders.remove(defenderUUID);
-            if (defenders.isEmpty()) {
-                activeWars.remove(attackerUUID);
-            }
-        }
-        String key = warKey(attackerUUID, defenderUUID);
-        warAllies.remove(key);
-        warStartTimes.remove(key);
-        appliedBypass.remove(key);
-        appliedAllyBypass.remove(key);
-        bypassVotes.remove(key);
-        
+        removeWar(war);
+
         // Remove OPAC bypass permissions
         removeWarBypass(attackerUUID, defenderUUID, server);
-        
-        // Save wars to disk
-        saveWars();
-        
+
+        // Journal the end
+        record(war, WarJournal.Event.of(WarJournal.Type.END, war));
+
         // Get player names for broadcast
         String attackerName = getPlayerNameFromUUID(attackerUUID, server);
         String defenderName = getPlayerNameFromUUID(defenderUUID, server);
-        
+
         // Broadcast peace message
         Component message = Component.literal("🕊 Peace restored between §6" + attackerName + " §rand §6" + defenderName + "§r.");
         server.getPlayerList().broadcastSystemMessage(message, false);
-        
+
         System.out.println("[ShinobiAllianceMod] War ended: " + attackerName + " vs " + defenderName);
-        
+
         return true;
     }
 
@@ -174,82 +203,49 @@ public class WarManager {
      * Check if a specific war is active
      */
     public static boolean isAtWar(UUID attackerUUID, UUID defenderUUID) {
-        Set<UUID> defenders = activeWars.get(attackerUUID);
-        return defenders != null && defenders.contains(defenderUUID);
+        return findWar(attackerUUID, defenderUUID) != null;
     }
 
     /**
      * Check if a player is involved in ANY war
      */
     public static boolean isInvolvedInWar(UUID playerUUID) {
-        // Check if they're an attacker
-        if (activeWars.containsKey(playerUUID)) {
-            return true;
+        Reference2IntOpenHashMap<War> wars = participants.get(playerUUID);
+        if (wars == null) return false;
+        for (int roles : wars.values()) {
+            if ((roles & ROLE_KAGE) != 0) return true;
         }
-        
-        // Check if they're a defender in any war
-        for (Set<UUID> defenders : activeWars.values()) {
-            if (defenders.contains(playerUUID)) {
-                return true;
-            }
-        }
-        
         return false;
     }
 
     /**
      * Check if two players are at war AND bypass is active (grace expired)
+     * Allocation-free: two nested map lookups per direction.
      */
     public static boolean isAtWarWithBypassActive(UUID player1, UUID player2) {
-        boolean atWar = isAtWar(player1, player2) || isAtWar(player2, player1);
-        if (!atWar) return false;
-        
-        // Determine attacker/defender
-        UUID attacker = isAtWar(player1, player2) ? player1 : player2;
-        UUID defender = isAtWar(player1, player2) ? player2 : player1;
-        
-        String key = warKey(attacker, defender);
-        return appliedBypass.contains(key);
+        War war = findWarEitherWay(warsByAttacker, player1, player2);
+        return war != null && war.bypassApplied;
     }
 
     /**
      * Get all wars involving a specific player
      */
     public static List<WarInfo> getWarsForPlayer(UUID playerUUID) {
-        List<WarInfo> wars = new ArrayList<>();
-        
-        // Wars where they're the attacker
-        Set<UUID> asAttacker = activeWars.get(playerUUID);
-        if (asAttacker != null) {
-            for (UUID defenderUUID : asAttacker) {
-                wars.add(new WarInfo(playerUUID, defenderUUID));
-            }
-        }
-        
-        // Wars where they're the defender
-        for (Map.Entry<UUID, Set<UUID>> entry : activeWars.entrySet()) {
-            if (entry.getValue().contains(playerUUID)) {
-                wars.add(new WarInfo(entry.getKey(), playerUUID));
-            }
-        }
-        
-        return wars;
+        return warsWithRole(playerUUID, ROLE_KAGE);
     }
 
     /**
      * Get all active wars
      */
     public static List<WarInfo> getAllWars() {
-        List<WarInfo> wars = new ArrayList<>();
-        
-        for (Map.Entry<UUID, Set<UUID>> entry : activeWars.entrySet()) {
-            UUID attackerUUID = entry.getKey();
-            for (UUID defenderUUID : entry.getValue()) {
-                wars.add(new WarInfo(attackerUUID, defenderUUID));
-            }
-        }
-        
-        return wars;
+        return new ArrayList<>(warsById.values());
+    }
+
+    /**
+     * The latest published snapshot of all wars. Safe from any thread, never null.
+     */
+    public static WarView view() {
+        return view;
     }
 
     /**
@@ -257,51 +253,44 @@ public class WarManager {
      * Returns human-readable status.
      */
     public static String requestGraceBypass(UUID requester, UUID target, MinecraftServer server) {
-        boolean direct = isAtWar(requester, target);
-        boolean reverse = isAtWar(target, requester);
-        if (!direct && !reverse) {
+        War war = findWarEitherWay(warsByAttacker, requester, target);
+        if (war == null) {
             return "No active war with that player.";
         }
 
-        UUID attacker = direct ? requester : target;
-        UUID defender = direct ? target : requester;
-        String key = warKey(attacker, defender);
+        UUID attacker = war.attackerUUID;
+        UUID defender = war.defenderUUID;
 
-        if (appliedBypass.contains(key)) {
+        if (war.bypassApplied) {
             return "Bypass already active for this war.";
         }
 
-        Set<UUID> votes = bypassVotes.computeIfAbsent(key, k -> new HashSet<>());
-        if (votes.contains(requester)) {
+        Set<UUID> votes = war.bypassVotes;
+        boolean bothVoted = votes.contains(attacker) && votes.contains(defender);
+        if (votes.contains(requester) && !bothVoted) {
             return "You already agreed to bypass this war's grace.";
         }
-        votes.add(requester);
+        // With both votes in (a previous apply failed), a repeat vote just retries the apply
+        if (votes.add(requester)) {
+            record(war, WarJournal.Event.of(WarJournal.Type.VOTE, war, requester, requester.equals(attacker), 0L));
 
-        // Notify the other Kage
-        UUID other = requester.equals(attacker) ? defender : attacker;
-        ServerPlayer otherPlayer = server.getPlayerList().getPlayer(other);
-        if (otherPlayer != null) {
-            otherPlayer.sendSystemMessage(Component.literal("§e" + getPlayerNameFromUUID(requester, server) + " wants to skip the grace period. Type §a/war bypass " + getPlayerNameFromUUID(requester, server) + " §eto agree."));
+            // Notify the other Kage
+            UUID other = requester.equals(attacker) ? defender : attacker;
+            ServerPlayer otherPlayer = server.getPlayerList().getPlayer(other);
+            if (otherPlayer != null) {
+                otherPlayer.sendSystemMessage(Component.literal("§e" + getPlayerNameFromUUID(requester, server) + " wants to skip the grace period. Type §a/war bypass " + getPlayerNameFromUUID(requester, server) + " §eto agree."));
+            }
         }
 
         if (votes.contains(attacker) && votes.contains(defender)) {
             boolean applied = applyWarBypass(attacker, defender, server);
             if (applied) {
-                appliedBypass.add(key);
-                // Clear grace period by setting start time to far past (instant expiration)
-                warStartTimes.put(key, 0L);
-                // Clear all ally grace times for this war
-                if (allyGraceStarts.containsKey(key)) {
-                    Map<UUID, Long> allyTimes = allyGraceStarts.get(key);
-                    for (UUID allyUUID : allyTimes.keySet()) {
-                        allyTimes.put(allyUUID, 0L);
-                    }
-                }
-                ensureAlliesAccess(attacker, defender, server);
-                bypassVotes.remove(key);
+                skipGrace(war);
+                record(war, WarJournal.Event.of(WarJournal.Type.SKIP_GRACE, war));
+                ensureAlliesAccess(war, server);
                 return "Both Kage agreed. Claims bypass is now active for this war.";
             } else {
-                return "Both agreed, but bypass could not be applied (are both online?).";
+                return "Both agreed, but bypass could not be applied (are both online?). Run /war bypass again to retry.";
             }
         }
 
@@ -349,7 +338,7 @@ public class WarManager {
 
             System.out.println("[ShinobiAllianceMod] War bypass activated for " + attacker.getName().getString() + " <-> " + defender.getName().getString());
             System.out.println("[ShinobiAllianceMod] Protection disabled - attacker: " + result1 + ", defender: " + result2);
-            
+
             return (result1 == xaero.pac.common.server.player.config.api.IPlayerConfigAPI.SetResult.SUCCESS &&
                     result2 == xaero.pac.common.server.player.config.api.IPlayerConfigAPI.SetResult.SUCCESS);
         } catch (Exception e) {
@@ -404,37 +393,17 @@ public class WarManager {
     }
 
     /**
-     * Get player name from UUID
+     * Get player name from UUID (offline players resolve through PlayerNameCache)
      */
     private static String getPlayerNameFromUUID(UUID uuid, MinecraftServer server) {
-        ServerPlayer player = server.getPlayerList().getPlayer(uuid);
-        if (player != null) {
-            return player.getName().getString();
-        }
-        
-        // If player is offline, return UUID as string
-        // In production, you'd want to query Mojang API or cache
-        return uuid.toString();
+        return PlayerNameCache.name(uuid, server);
     }
 
     /**
      * Get player's village
      */
     private static Village getPlayerVillage(ServerPlayer player, MinecraftServer server) {
-        var scoreboard = server.getScoreboard();
-        var team = scoreboard.getPlayersTeam(player.getScoreboardName());
-        
-        if (team != null) {
-            String teamName = team.getName();
-            // Team names are like "leaf_kage", "sand_jonin", etc.
-            for (Village village : Village.values()) {
-                if (teamName.startsWith(village.getId())) {
-                    return village;
-                }
-            }
-        }
-        
-        return null;
+        return RankManager.getPlayerVillage(player, server);
     }
 
     /**
@@ -448,92 +417,184 @@ public class WarManager {
     }
 
     /**
-     * Save wars to disk
+     * Journal one change to a war and publish a new view; folds the journal into a
+     * new snapshot every WarJournal.COMPACT_EVERY events.
      */
-    private static void saveWars() {
-        try {
-            // Convert to serializable format
-            Map<String, Set<String>> serializable = new HashMap<>();
-            for (Map.Entry<UUID, Set<UUID>> entry : activeWars.entrySet()) {
-                String attackerStr = entry.getKey().toString();
-                Set<String> defendersStr = entry.getValue().stream()
-                    .map(UUID::toString)
-                    .collect(Collectors.toSet());
-                serializable.put(attackerStr, defendersStr);
-            }
+    private static void record(War war, WarJournal.Event event) {
+        WarJournal.append(event);
+        if (WarJournal.shouldCompact()) {
+            WarJournal.compact(snapshotJson());
+        }
+        war.state = null;
+        publish();
+    }
 
-            Map<String, Long> starts = new HashMap<>();
-            for (Map.Entry<String, Long> entry : warStartTimes.entrySet()) {
-                starts.put(entry.getKey(), entry.getValue());
-            }
+    /**
+     * Replace the published view, reusing the WarState of every war that did not change.
+     */
+    private static void publish() {
+        List<WarView.WarState> states = new ArrayList<>(warsById.size());
+        for (War war : warsById.values()) {
+            if (war.state == null) war.state = toState(war);
+            states.add(war.state);
+        }
+        states.sort(Comparator.comparingInt(WarView.WarState::id));
+        view = new WarView(view.version() + 1, states);
+    }
 
-            WarSave save = new WarSave(serializable, starts);
-            String json = GSON.toJson(save);
-            Files.writeString(warDataFile, json);
-            System.out.println("[ShinobiAllianceMod] Saved wars to disk");
-        } catch (IOException e) {
-            System.err.println("[ShinobiAllianceMod] Failed to save wars: " + e.getMessage());
-            e.printStackTrace();
+    private static WarView.WarState toState(War war) {
+        List<WarView.AllyState> allies = new ArrayList<>(war.attackerAllies.size() + war.defenderAllies.size());
+        for (UUID ally : war.attackerAllies) allies.add(allyState(war, ally, true));
+        for (UUID ally : war.defenderAllies) allies.add(allyState(war, ally, false));
+        return new WarView.WarState(war.id, war.attackerUUID, war.defenderUUID,
+            war.startMillis + GRACE_PERIOD_MILLIS, GRACE_PERIOD_MILLIS, war.bypassApplied,
+            List.copyOf(allies), List.copyOf(war.pendingAttacker), List.copyOf(war.pendingDefender),
+            Set.copyOf(war.bypassVotes));
+    }
+
+    private static WarView.AllyState allyState(War war, UUID ally, boolean attackerSide) {
+        long graceEndsAt = 0L; // no grace entry: over
+        if (war.allyGraceStarts.containsKey(ally)) {
+            Long start = war.allyGraceStarts.get(ally);
+            graceEndsAt = start != null ? start + GRACE_PERIOD_MILLIS : WarView.STARTS_ON_LOGIN;
         }
+        return new WarView.AllyState(ally, attackerSide, graceEndsAt, war.allyBypassApplied.contains(ally));
     }
 
     /**
-     * Load wars from disk
+     * Full state of every war as snapshot JSON. Server thread.
      */
-    private static void loadWars() {
+    private static String snapshotJson() {
+        List<WarRecord> records = new ArrayList<>(warsById.size());
+        for (War war : warsById.values()) {
+            Map<String, Long> graceStarts = new HashMap<>();
+            war.allyGraceStarts.forEach((ally, start) -> graceStarts.put(ally.toString(), start != null ? start : -1L));
+            records.add(new WarRecord(war.attackerUUID.toString(), war.defenderUUID.toString(), war.startMillis, war.bypassApplied,
+                strings(war.attackerAllies), strings(war.defenderAllies), strings(war.pendingAttacker), strings(war.pendingDefender),
+                graceStarts, strings(war.allyBypassApplied), strings(war.bypassVotes)));
+        }
+        return GSON.toJson(new WarSave(SNAPSHOT_VERSION, WarJournal.sequence(), null, null, records));
+    }
+
+    private static List<String> strings(Set<UUID> uuids) {
+        List<String> out = new ArrayList<>(uuids.size());
+        for (UUID uuid : uuids) out.add(uuid.toString());
+        return out;
+    }
+
+    /**
+     * Load the snapshot. Returns false if the file was in an older format (or missing
+     * and there is nothing to rewrite).
+     */
+    private static boolean loadWars() {
+        clearWars();
+        loadedSeq = 0;
         if (!Files.exists(warDataFile)) {
             System.out.println("[ShinobiAllianceMod] No war data file found, starting fresh");
-            return;
+            return true;
         }
-        
+
         try {
             String json = Files.readString(warDataFile);
+            long legacyStart = System.currentTimeMillis() - GRACE_PERIOD_MILLIS; // allow immediate activation after restart
 
-            // New format: WarSave wrapper
             try {
                 WarSave save = GSON.fromJson(json, WarSave.class);
+                // Current format: full war records
+                if (save != null && save.records != null) {
+                    loadedSeq = save.seq;
+                    for (WarRecord rec : save.records) {
+                        loadRecord(rec);
+                    }
+                    System.out.println("[ShinobiAllianceMod] Loaded " + warsById.size() + " wars from disk");
+                    return true;
+                }
+                // Previous format: wars and grace start times only
                 if (save != null && save.wars != null) {
-                    activeWars.clear();
-                    warStartTimes.clear();
                     for (Map.Entry<String, Set<String>> entry : save.wars.entrySet()) {
                         UUID attackerUUID = UUID.fromString(entry.getKey());
-                        Set<UUID> defenders = entry.getValue().stream()
-                            .map(UUID::fromString)
-                            .collect(Collectors.toSet());
-                        activeWars.put(attackerUUID, defenders);
-                    }
-                    if (save.starts != null) {
-                        warStartTimes.putAll(save.starts);
+                        for (String def : entry.getValue()) {
+                            UUID defenderUUID = UUID.fromString(def);
+                            Long start = save.starts != null ? save.starts.get(saveKey(attackerUUID, defenderUUID)) : null;
+                            addWar(attackerUUID, defenderUUID, start != null ? start : legacyStart);
+                        }
                     }
-                    System.out.println("[ShinobiAllianceMod] Loaded " + getAllWars().size() + " wars from disk (with grace timers)");
-                    return;
+                    System.out.println("[ShinobiAllianceMod] Loaded " + warsById.size() + " wars from disk (with grace timers)");
+                    return false;
                 }
             } catch (Exception ignored) {
                 // Fallback to legacy format below
+                clearWars();
             }
 
             Type type = new TypeToken<Map<String, Set<String>>>(){}.getType();
             Map<String, Set<String>> serializable = GSON.fromJson(json, type);
-            
+
             if (serializable != null) {
-                activeWars.clear();
                 for (Map.Entry<String, Set<String>> entry : serializable.entrySet()) {
                     UUID attackerUUID = UUID.fromString(entry.getKey());
                     Set<UUID> defenders = entry.getValue().stream()
                         .map(UUID::fromString)
                         .collect(Collectors.toSet());
-                    activeWars.put(attackerUUID, defenders);
-                    long legacyStart = System.currentTimeMillis() - GRACE_PERIOD_MILLIS; // allow immediate activation after restart
                     for (UUID def : defenders) {
-                        warStartTimes.put(warKey(attackerUUID, def), legacyStart);
+                        addWar(attackerUUID, def, legacyStart);
                     }
                 }
-                System.out.println("[ShinobiAllianceMod] Loaded " + getAllWars().size() + " wars from disk (legacy, no grace times)");
+                System.out.println("[ShinobiAllianceMod] Loaded " + warsById.size() + " wars from disk (legacy, no grace times)");
             }
         } catch (IOException e) {
             System.err.println("[ShinobiAllianceMod] Failed to load wars: " + e.getMessage());
             e.printStackTrace();
         }
+        return false;
+    }
+
+    private static void loadRecord(WarRecord rec) {
+        War war = addWar(UUID.fromString(rec.attacker), UUID.fromString(rec.defender), rec.start);
+        war.bypassApplied = rec.bypass;
+        if (rec.attackerAllies != null) for (String u : rec.attackerAllies) joinAlly(war, UUID.fromString(u), true);
+        if (rec.defenderAllies != null) for (String u : rec.defenderAllies) joinAlly(war, UUID.fromString(u), false);
+        if (rec.pendingAttacker != null) for (String u : rec.pendingAttacker) invite(war, UUID.fromString(u), true);
+        if (rec.pendingDefender != null) for (String u : rec.pendingDefender) invite(war, UUID.fromString(u), false);
+        if (rec.allyGraceStarts != null) {
+            rec.allyGraceStarts.forEach((ally, start) -> {
+                UUID allyUUID = UUID.fromString(ally);
+                if (start != null && start >= 0) {
+                    startAllyGrace(war, allyUUID, start);
+                } else {
+                    war.allyGraceStarts.putIfAbsent(allyUUID, null);
+                }
+            });
+        }
+        if (rec.allyBypass != null) for (String u : rec.allyBypass) war.allyBypassApplied.add(UUID.fromString(u));
+        if (rec.votes != null) for (String u : rec.votes) war.bypassVotes.add(UUID.fromString(u));
+    }
+
+    /**
+     * Re-apply one journaled change on top of the loaded snapshot.
+     */
+    private static void replay(WarJournal.Event event) {
+        UUID attacker = UUID.fromString(event.attacker());
+        UUID defender = UUID.fromString(event.defender());
+        War war = findWar(attacker, defender);
+        if (event.type() == WarJournal.Type.DECLARE) {
+            if (war == null) addWar(attacker, defender, event.at());
+            return;
+        }
+        if (war == null) return; // ended later in the journal, or never made it into a snapshot
+        UUID player = event.player() != null ? UUID.fromString(event.player()) : null;
+        switch (event.type()) {
+            case END -> removeWar(war);
+            case ALLY -> joinAlly(war, player, event.attackerSide());
+            case PENDING -> invite(war, player, event.attackerSide());
+            case OPTIN -> optIn(war, player, event.at());
+            case ALLY_GRACE -> startAllyGrace(war, player, event.at());
+            case VOTE -> war.bypassVotes.add(player);
+            case SKIP_GRACE -> skipGrace(war);
+            case BYPASS -> war.bypassApplied = true;
+            case ALLY_BYPASS -> war.allyBypassApplied.add(player);
+            default -> { }
+        }
     }
 
     /**
@@ -542,70 +603,173 @@ public class WarManager {
     public static class WarInfo {
         public final UUID attackerUUID;
         public final UUID defenderUUID;
-        
+
         public WarInfo(UUID attackerUUID, UUID defenderUUID) {
             this.attackerUUID = attackerUUID;
             this.defenderUUID = defenderUUID;
         }
     }
 
-    /** Allies structure */
-    private static class WarAllies {
-        final Set<UUID> attackerSide = new HashSet<>();
-        final Set<UUID> defenderSide = new HashSet<>();
-    }
-    private static class PendingAllies {
-        final Set<UUID> attackerSide = new HashSet<>();
-        final Set<UUID> defenderSide = new HashSet<>();
+    /**
+     * All state of one war. Server thread only.
+     */
+    static final class War extends WarInfo {
+        final int id;
+        long startMillis;            // declared at; 0 once both Kage voted to skip grace
+        boolean bypassApplied;
+        boolean ended;
+        final Set<UUID> attackerAllies = new HashSet<>();
+        final Set<UUID> defenderAllies = new HashSet<>();
+        final Set<UUID> pendingAttacker = new HashSet<>();   // invited, must /war optin
+        final Set<UUID> pendingDefender = new HashSet<>();
+        final Map<UUID, Long> allyGraceStarts = new HashMap<>(); // value null until the ally's first login
+        final Set<UUID> allyBypassApplied = new HashSet<>();
+        final Set<UUID> bypassVotes = new HashSet<>();        // both Kage must agree
+        WarView.WarState state;                               // published copy; null after a change
+
+        War(int id, UUID attackerUUID, UUID defenderUUID, long startMillis) {
+            super(attackerUUID, defenderUUID);
+            this.id = id;
+            this.startMillis = startMillis;
+        }
+
+        boolean isGraceOver(long now) {
+            return now - startMillis >= GRACE_PERIOD_MILLIS;
+        }
+
+        Set<UUID> allies(boolean attackerSide) {
+            return attackerSide ? attackerAllies : defenderAllies;
+        }
+
+        Set<UUID> pending(boolean attackerSide) {
+            return attackerSide ? pendingAttacker : pendingDefender;
+        }
     }
 
-    private record WarSave(Map<String, Set<String>> wars, Map<String, Long> starts) {}
+    // wars/starts: previous format (read only); records: current format; seq: last journal event included
+    private record WarSave(int version, long seq, Map<String, Set<String>> wars, Map<String, Long> starts, List<WarRecord> records) {}
 
-    private static String warKey(UUID attacker, UUID defender) {
+    // allyGraceStarts: -1 = starts on the ally's first login
+    private record WarRecord(String attacker, String defender, long start, boolean bypass,
+                             List<String> attackerAllies, List<String> defenderAllies,
+                             List<String> pendingAttacker, List<String> pendingDefender,
+                             Map<String, Long> allyGraceStarts, List<String> allyBypass, List<String> votes) {}
+
+    /** A grace deadline; ally is null for the war's own grace period. Entries go stale when wars end or restart. */
+    private record Deadline(long due, War war, UUID ally) {}
+
+    /** Key of the start-time map in the previous shinobi_wars.json format. */
+    static String saveKey(UUID attacker, UUID defender) {
         return attacker.toString() + ":" + defender.toString();
     }
 
+    static War findWar(UUID attacker, UUID defender) {
+        return findWar(warsByAttacker, attacker, defender);
+    }
+
+    private static War findWar(Map<UUID, Map<UUID, War>> byAttacker, UUID attacker, UUID defender) {
+        Map<UUID, War> defenders = byAttacker.get(attacker);
+        return defenders != null ? defenders.get(defender) : null;
+    }
+
+    /** The war between two players in either direction, attacker-first as given. */
+    static War findWarEitherWay(Map<UUID, Map<UUID, War>> byAttacker, UUID player1, UUID player2) {
+        War war = findWar(byAttacker, player1, player2);
+        return war != null ? war : findWar(byAttacker, player2, player1);
+    }
+
+    private static War addWar(UUID attackerUUID, UUID defenderUUID, long startMillis) {
+        War war = new War(nextWarId++, attackerUUID, defenderUUID, startMillis);
+        warsByAttacker.computeIfAbsent(attackerUUID, k -> new HashMap<>()).put(defenderUUID, war);
+        warsById.put(war.id, war);
+        index(attackerUUID, war, ROLE_ATTACKER);
+        index(defenderUUID, war, ROLE_DEFENDER);
+        deadlines.add(new Deadline(startMillis + GRACE_PERIOD_MILLIS, war, null));
+        return war;
+    }
+
+    private static void removeWar(War war) {
+        war.ended = true;
+        Map<UUID, War> defenders = warsByAttacker.get(war.attackerUUID);
+        if (defenders != null) {
+            defenders.remove(war.defenderUUID);
+            if (defenders.isEmpty()) {
+                warsByAttacker.remove(war.attackerUUID);
+            }
+        }
+        warsById.remove(war.id);
+        unindexWar(war);
+    }
+
+    private static void clearWars() {
+        warsByAttacker.clear();
+        warsById.clear();
+        participants.clear();
+        deadlines.clear();
+    }
+
+    private static void index(UUID player, War war, int role) {
+        Reference2IntOpenHashMap<War> wars = participants.computeIfAbsent(player, k -> new Reference2IntOpenHashMap<>());
+        wars.put(war, wars.getInt(war) | role); // default value 0 = no role
+    }
+
+    private static void unindex(UUID player, War war, int role) {
+        Reference2IntOpenHashMap<War> wars = participants.get(player);
+        if (wars == null) return;
+        int roles = wars.getInt(war) & ~role;
+        if (roles != 0) {
+            wars.put(war, roles);
+        } else {
+            wars.removeInt(war);
+            if (wars.isEmpty()) participants.remove(player);
+        }
+    }
+
+    /** Drop every participant's entry for a war that ended. */
+    private static void unindexWar(War war) {
+        int all = ROLE_KAGE | ROLE_ALLY | ROLE_PENDING;
+        unindex(war.attackerUUID, war, all);
+        unindex(war.defenderUUID, war, all);
+        for (UUID u : war.attackerAllies) unindex(u, war, all);
+        for (UUID u : war.defenderAllies) unindex(u, war, all);
+        for (UUID u : war.pendingAttacker) unindex(u, war, all);
+        for (UUID u : war.pendingDefender) unindex(u, war, all);
+    }
+
+    /** Wars where the player has any of the given roles (a copy; safe to modify the index while iterating). */
+    private static List<WarInfo> warsWithRole(UUID player, int roleMask) {
+        Reference2IntOpenHashMap<War> wars = participants.get(player);
+        if (wars == null) return new ArrayList<>();
+        List<WarInfo> result = new ArrayList<>(wars.size());
+        for (Reference2IntMap.Entry<War> entry : wars.reference2IntEntrySet()) {
+            if ((entry.getIntValue() & roleMask) != 0) result.add(entry.getKey());
+        }
+        return result;
+    }
+
     /**
      * Add ally to all wars where kageUUID is attacker or defender; returns number of wars affected.
      */
     public static int addAllyToWars(UUID kageUUID, UUID allyUUID, MinecraftServer server) {
         int count = 0;
-        // As attacker
-        Set<UUID> defenders = activeWars.get(kageUUID);
-        if (defenders != null) {
-            for (UUID def : defenders) {
-                WarAllies wa = warAllies.computeIfAbsent(warKey(kageUUID, def), k -> new WarAllies());
-                if (wa.attackerSide.add(allyUUID)) {
-                    String key = warKey(kageUUID, def);
-                    startAllyGraceIfEligible(key, allyUUID);
-                    if (isGracePeriodOver(kageUUID, def) && isAllyGraceOver(key, allyUUID)) {
-                        applyAllyPermissions(allyUUID, def, key, server);
-                    }
-                    count++;
-                }
-            }
-        }
-        // As defender
-        for (Map.Entry<UUID, Set<UUID>> entry : activeWars.entrySet()) {
-            if (entry.getValue().contains(kageUUID)) {
-                UUID attacker = entry.getKey();
-                WarAllies wa = warAllies.computeIfAbsent(warKey(attacker, kageUUID), k -> new WarAllies());
-                if (wa.defenderSide.add(allyUUID)) {
-                    String key = warKey(attacker, kageUUID);
-                    startAllyGraceIfEligible(key, allyUUID);
-                    if (isGracePeriodOver(attacker, kageUUID) && isAllyGraceOver(key, allyUUID)) {
-                        applyAllyPermissions(allyUUID, attacker, key, server);
-                    }
-                    count++;
+        for (WarInfo info : warsWithRole(kageUUID, ROLE_KAGE)) {
+            War war = (War) info;
+            boolean asAttacker = war.attackerUUID.equals(kageUUID);
+            UUID enemy = asAttacker ? war.defenderUUID : war.attackerUUID;
+            if (joinAlly(war, allyUUID, asAttacker)) {
+                record(war, WarJournal.Event.of(WarJournal.Type.ALLY, war, allyUUID, asAttacker, 0L));
+                long now = System.currentTimeMillis();
+                if (war.isGraceOver(now) && isAllyGraceOver(war, allyUUID, now)) {
+                    applyAllyPermissions(allyUUID, enemy, war, server);
                 }
+                count++;
             }
         }
         return count;
     }
 
-    private static void applyAllyPermissions(UUID allyUUID, UUID enemyKageUUID, String warKey, MinecraftServer server) {
-        Set<UUID> applied = appliedAllyBypass.computeIfAbsent(warKey, k -> new HashSet<>());
-        if (applied.contains(allyUUID)) return; // already granted
+    private static void applyAllyPermissions(UUID allyUUID, UUID enemyKageUUID, War war, MinecraftServer server) {
+        if (war.allyBypassApplied.contains(allyUUID)) return; // already granted
 
         ServerPlayer ally = server.getPlayerList().getPlayer(allyUUID);
         ServerPlayer enemy = server.getPlayerList().getPlayer(enemyKageUUID);
@@ -613,29 +777,54 @@ public class WarManager {
 
         System.out.println("[ShinobiAllianceMod] Ally bypass activated: " + ally.getName().getString() + " in war against " + enemy.getName().getString());
         ally.sendSystemMessage(Component.literal("§eYou have joined the war. You may now break/interact with enemy claims."));
-        applied.add(allyUUID);
+        war.allyBypassApplied.add(allyUUID);
+        record(war, WarJournal.Event.of(WarJournal.Type.ALLY_BYPASS, war, allyUUID, false, 0L));
     }
 
     /**
      * Called every server tick to activate bypasses once grace expires.
+     * Only deadlines that have passed are touched; nothing else runs per tick.
+     * Activations that need a player online are retried from handlePlayerLogin.
      */
     public static void tick(MinecraftServer server) {
+        if (deadlines.isEmpty()) return;
         long now = System.currentTimeMillis();
-        for (WarInfo war : getAllWars()) {
-            String key = warKey(war.attackerUUID, war.defenderUUID);
-            Long start = warStartTimes.getOrDefault(key, now);
-            if (now - start < GRACE_PERIOD_MILLIS) continue; // still in grace
-            if (appliedBypass.contains(key)) {
-                // Even if marked applied, ensure allies get access if they log in later
-                ensureAlliesAccess(war.attackerUUID, war.defenderUUID, server);
-                continue;
+        while (!deadlines.isEmpty() && deadlines.peek().due() <= now) {
+            Deadline d = deadlines.poll();
+            if (d.war().ended) continue;
+            if (d.ally() == null) {
+                onWarGraceOver(d.war(), server);
+            } else {
+                onAllyGraceOver(d.war(), d.ally(), server);
             }
-            boolean applied = applyWarBypass(war.attackerUUID, war.defenderUUID, server);
-            if (applied) {
-                appliedBypass.add(key);
-                ensureAlliesAccess(war.attackerUUID, war.defenderUUID, server);
+        }
+    }
+
+    private static void onWarGraceOver(War war, MinecraftServer server) {
+        if (!war.isGraceOver(System.currentTimeMillis())) return;
+        if (!war.bypassApplied) {
+            if (!applyWarBypass(war.attackerUUID, war.defenderUUID, server)) {
+                // Offline Kage are picked up on login; otherwise OPAC was not ready yet
+                if (isOnline(war.attackerUUID, server) && isOnline(war.defenderUUID, server)) {
+                    deadlines.add(new Deadline(System.currentTimeMillis() + RETRY_MILLIS, war, null));
+                }
+                return;
             }
+            war.bypassApplied = true;
+            record(war, WarJournal.Event.of(WarJournal.Type.BYPASS, war));
         }
+        ensureAlliesAccess(war, server);
+    }
+
+    private static void onAllyGraceOver(War war, UUID ally, MinecraftServer server) {
+        // Before the war's own bypass, allies are handled when it activates
+        if (!war.bypassApplied || !isAllyGraceOver(war, ally, System.currentTimeMillis())) return;
+        if (war.attackerAllies.contains(ally)) applyAllyPermissions(ally, war.defenderUUID, war, server);
+        if (war.defenderAllies.contains(ally)) applyAllyPermissions(ally, war.attackerUUID, war, server);
+    }
+
+    private static boolean isOnline(UUID uuid, MinecraftServer server) {
+        return server.getPlayerList().getPlayer(uuid) != null;
     }
 
     /**
@@ -643,104 +832,122 @@ public class WarManager {
      */
     public static void handlePlayerLogin(ServerPlayer player, MinecraftServer server) {
         UUID uuid = player.getUUID();
-        // Wars as attacker
-        Set<UUID> defenders = activeWars.get(uuid);
-        if (defenders != null) {
-            for (UUID def : defenders) {
-                maybeApplyAfterLogin(uuid, def, server);
+        Reference2IntOpenHashMap<War> wars = participants.get(uuid);
+        if (wars == null) return;
+        // Copy first: granting access may update the index
+        Reference2IntOpenHashMap<War> snapshot = new Reference2IntOpenHashMap<>(wars);
+        for (Reference2IntMap.Entry<War> entry : snapshot.reference2IntEntrySet()) {
+            War war = entry.getKey();
+            int roles = entry.getIntValue();
+            if ((roles & ROLE_KAGE) != 0) {
+                maybeApplyAfterLogin(war, server);
             }
-        }
-        // Wars as defender
-        for (Map.Entry<UUID, Set<UUID>> entry : activeWars.entrySet()) {
-            if (entry.getValue().contains(uuid)) {
-                maybeApplyAfterLogin(entry.getKey(), uuid, server);
+            if ((roles & ROLE_ALLY) != 0) {
+                // Start their ally grace on first login; after it ends they are granted in tick(),
+                // or now if it already ended while they were offline
+                startAllyGraceOnLogin(war, uuid);
+                if (war.bypassApplied) ensureAlliesAccess(war, server);
             }
-        }
-            // If player is an ally in any war, start their ally grace on first login
-        for (WarInfo war : getAllWars()) {
-            String key = warKey(war.attackerUUID, war.defenderUUID);
-            WarAllies allies = warAllies.get(key);
-            if (allies == null) continue;
-            if (allies.attackerSide.contains(uuid) || allies.defenderSide.contains(uuid)) {
-                startAllyGraceOnLogin(key, uuid);
-                // After their grace ends, they will be granted in tick()
+            if ((roles & ROLE_PENDING) != 0) {
+                player.sendSystemMessage(Component.literal("§eYou have a pending war invite. Use §a/war optin §eto participate."));
             }
-                // If pending, notify again
-                PendingAllies pending = pendingAllies.get(key);
-                if (pending != null && (pending.attackerSide.contains(uuid) || pending.defenderSide.contains(uuid))) {
-                    player.sendSystemMessage(Component.literal("§eYou have a pending war invite. Use §a/war optin §eto participate."));
-                }
         }
     }
 
-    private static void maybeApplyAfterLogin(UUID attacker, UUID defender, MinecraftServer server) {
-        if (!isGracePeriodOver(attacker, defender)) return;
-        String key = warKey(attacker, defender);
-        boolean applied = applyWarBypass(attacker, defender, server);
+    private static void maybeApplyAfterLogin(War war, MinecraftServer server) {
+        if (!war.isGraceOver(System.currentTimeMillis())) return;
+        boolean applied = applyWarBypass(war.attackerUUID, war.defenderUUID, server);
         if (applied) {
-            appliedBypass.add(key);
+            if (!war.bypassApplied) {
+                war.bypassApplied = true;
+                record(war, WarJournal.Event.of(WarJournal.Type.BYPASS, war));
+            }
+        } else if (!war.bypassApplied && isOnline(war.attackerUUID, server) && isOnline(war.defenderUUID, server)) {
+            // OPAC configs may not be loaded yet right after login
+            deadlines.add(new Deadline(System.currentTimeMillis() + RETRY_MILLIS, war, null));
         }
-        ensureAlliesAccess(attacker, defender, server);
+        ensureAlliesAccess(war, server);
     }
 
-    private static void ensureAlliesAccess(UUID attacker, UUID defender, MinecraftServer server) {
-        if (!isGracePeriodOver(attacker, defender)) return;
-        WarAllies allies = warAllies.get(warKey(attacker, defender));
-        if (allies == null) return;
-        String key = warKey(attacker, defender);
-        for (UUID ally : allies.attackerSide) {
-            if (isAllyGraceOver(key, ally)) applyAllyPermissions(ally, defender, key, server);
+    private static void ensureAlliesAccess(War war, MinecraftServer server) {
+        long now = System.currentTimeMillis();
+        if (!war.isGraceOver(now)) return;
+        for (UUID ally : war.attackerAllies) {
+            if (isAllyGraceOver(war, ally, now)) applyAllyPermissions(ally, war.defenderUUID, war, server);
         }
-        for (UUID ally : allies.defenderSide) {
-            if (isAllyGraceOver(key, ally)) applyAllyPermissions(ally, attacker, key, server);
+        for (UUID ally : war.defenderAllies) {
+            if (isAllyGraceOver(war, ally, now)) applyAllyPermissions(ally, war.attackerUUID, war, server);
         }
     }
 
-    private static boolean isGracePeriodOver(UUID attacker, UUID defender) {
-        String key = warKey(attacker, defender);
-        Long start = warStartTimes.get(key);
-        if (start == null) return false;
-        return System.currentTimeMillis() - start >= GRACE_PERIOD_MILLIS;
+    private static void startAllyGraceOnLogin(War war, UUID ally) {
+        long now = System.currentTimeMillis();
+        if (startAllyGrace(war, ally, now)) {
+            record(war, WarJournal.Event.of(WarJournal.Type.ALLY_GRACE, war, ally, false, now));
+        }
     }
 
-    private static void startAllyGraceIfEligible(String key, UUID ally) {
-        Map<UUID, Long> map = allyGraceStarts.computeIfAbsent(key, k -> new HashMap<>());
-        map.putIfAbsent(ally, null); // will start on login
+    // ===== State changes shared by live code and journal replay =====
+
+    /** Add an ally to one side; their grace starts on login. False if already there. */
+    private static boolean joinAlly(War war, UUID ally, boolean attackerSide) {
+        if (!war.allies(attackerSide).add(ally)) return false;
+        index(ally, war, ROLE_ALLY);
+        war.allyGraceStarts.putIfAbsent(ally, null); // will start on login
+        return true;
     }
 
-    private static void startAllyGraceOnLogin(String key, UUID ally) {
-        Map<UUID, Long> map = allyGraceStarts.computeIfAbsent(key, k -> new HashMap<>());
-        if (!map.containsKey(ally) || map.get(ally) == null) {
-            map.put(ally, System.currentTimeMillis());
-        }
+    /** Invite a Kage ally to one side; they must opt in. False if already invited. */
+    private static boolean invite(War war, UUID ally, boolean attackerSide) {
+        if (!war.pending(attackerSide).add(ally)) return false;
+        index(ally, war, ROLE_PENDING);
+        return true;
+    }
+
+    /** Move a pending ally into the war and start their grace at the given time. */
+    private static boolean optIn(War war, UUID ally, long at) {
+        unindex(ally, war, ROLE_PENDING);
+        boolean onAttacker = war.pendingAttacker.remove(ally);
+        boolean onDefender = war.pendingDefender.remove(ally);
+        if (!onAttacker && !onDefender) return false;
+        if (onAttacker) joinAlly(war, ally, true);
+        if (onDefender) joinAlly(war, ally, false);
+        startAllyGrace(war, ally, at);
+        return true;
+    }
+
+    private static boolean startAllyGrace(War war, UUID ally, long at) {
+        if (war.allyGraceStarts.get(ally) != null) return false;
+        war.allyGraceStarts.put(ally, at);
+        deadlines.add(new Deadline(at + GRACE_PERIOD_MILLIS, war, ally));
+        return true;
+    }
+
+    /** Both Kage voted: bypass is on and all grace periods are over. */
+    private static void skipGrace(War war) {
+        war.bypassApplied = true;
+        // Clear grace period by setting start time to far past (instant expiration)
+        war.startMillis = 0L;
+        // Clear all ally grace times for this war
+        war.allyGraceStarts.replaceAll((ally, start) -> 0L);
+        war.bypassVotes.clear();
     }
 
-    private static boolean isAllyGraceOver(String key, UUID ally) {
-        Map<UUID, Long> map = allyGraceStarts.get(key);
-        if (map == null) return false;
-        Long start = map.get(ally);
+    private static boolean isAllyGraceOver(War war, UUID ally, long now) {
+        Long start = war.allyGraceStarts.get(ally);
         if (start == null) return false;
-        return System.currentTimeMillis() - start >= GRACE_PERIOD_MILLIS;
+        return now - start >= GRACE_PERIOD_MILLIS;
     }
 
     /** Request ally opt-in (never auto-add allies). Returns number of wars added to pending. */
     public static int requestAllyOptIn(UUID kageUUID, UUID allyUUID, MinecraftServer server) {
         int count = 0;
-        // As attacker
-        Set<UUID> defenders = activeWars.get(kageUUID);
-        if (defenders != null) {
-            for (UUID def : defenders) {
-                String key = warKey(kageUUID, def);
-                PendingAllies p = pendingAllies.computeIfAbsent(key, k -> new PendingAllies());
-                if (p.attackerSide.add(allyUUID)) count++;
-            }
-        }
-        // As defender
-        for (Map.Entry<UUID, Set<UUID>> entry : activeWars.entrySet()) {
-            if (entry.getValue().contains(kageUUID)) {
-                String key = warKey(entry.getKey(), kageUUID);
-                PendingAllies p = pendingAllies.computeIfAbsent(key, k -> new PendingAllies());
-                if (p.defenderSide.add(allyUUID)) count++;
+        for (WarInfo info : warsWithRole(kageUUID, ROLE_KAGE)) {
+            War war = (War) info;
+            boolean attackerSide = war.attackerUUID.equals(kageUUID);
+            if (invite(war, allyUUID, attackerSide)) {
+                record(war, WarJournal.Event.of(WarJournal.Type.PENDING, war, allyUUID, attackerSide, 0L));
+                count++;
             }
         }
         if (count > 0) {
@@ -753,36 +960,29 @@ public class WarManager {
     /** Ally executes opt-in; adds them to war allies and starts their grace. */
     public static int optInAlly(UUID allyUUID, MinecraftServer server) {
         int joined = 0;
-        for (WarInfo war : getAllWars()) {
-            String key = warKey(war.attackerUUID, war.defenderUUID);
-            PendingAllies p = pendingAllies.get(key);
-            if (p == null) continue;
-            boolean onAttacker = p.attackerSide.remove(allyUUID);
-            boolean onDefender = p.defenderSide.remove(allyUUID);
-            if (!onAttacker && !onDefender) continue;
-            WarAllies wa = warAllies.computeIfAbsent(key, k -> new WarAllies());
-            if (onAttacker) wa.attackerSide.add(allyUUID);
-            if (onDefender) wa.defenderSide.add(allyUUID);
-            startAllyGraceIfEligible(key, allyUUID);
-            startAllyGraceOnLogin(key, allyUUID);
+        for (WarInfo info : warsWithRole(allyUUID, ROLE_PENDING)) {
+            War war = (War) info;
+            long now = System.currentTimeMillis();
+            if (!optIn(war, allyUUID, now)) continue;
+            record(war, WarJournal.Event.of(WarJournal.Type.OPTIN, war, allyUUID, false, now));
             joined++;
         }
         return joined;
     }
 
-    private static void autoRegisterPartyMembers(ServerPlayer attacker, ServerPlayer defender, MinecraftServer server) {
+    private static void autoRegisterPartyMembers(ServerPlayer attacker, ServerPlayer defender, War war, MinecraftServer server) {
         try {
             xaero.pac.common.server.api.OpenPACServerAPI api = xaero.pac.common.server.api.OpenPACServerAPI.get(server);
             if (api == null) return;
             var pm = api.getPartyManager();
             if (pm == null) return;
             // Collect members for both sides
-            registerSidePartyMembers(attacker, defender.getUUID(), server, pm, true);
-            registerSidePartyMembers(defender, attacker.getUUID(), server, pm, false);
+            registerSidePartyMembers(attacker, war, server, pm, true);
+            registerSidePartyMembers(defender, war, server, pm, false);
         } catch (Throwable ignored) {}
     }
 
-    private static void registerSidePartyMembers(ServerPlayer kage, UUID enemyUUID, MinecraftServer server,
+    private static void registerSidePartyMembers(ServerPlayer kage, War war, MinecraftServer server,
                                                  Object partyManager, boolean attackerSide) {
         try {
             java.lang.reflect.Method getPartyOfPlayer = partyManager.getClass().getMethod("getPartyOfPlayer", java.util.UUID.class);
@@ -791,8 +991,6 @@ public class WarManager {
             java.lang.reflect.Method getMembers = party.getClass().getMethod("getMembers");
             java.util.Collection<?> members = (java.util.Collection<?>) getMembers.invoke(party);
             if (members == null) return;
-            WarAllies wa = warAllies.computeIfAbsent(warKey(attackerSide ? kage.getUUID() : enemyUUID,
-                                                            attackerSide ? enemyUUID : kage.getUUID()), k -> new WarAllies());
             for (Object memberObj : members) {
                 java.lang.reflect.Method getUUID = memberObj.getClass().getMethod("getUUID");
                 UUID memberUUID = (UUID) getUUID.invoke(memberObj);
@@ -801,18 +999,17 @@ public class WarManager {
                 Rank r = (member != null) ? PlayerPointsManager.getRank(member) : Rank.GENIN; // default if offline
                 if (r == Rank.KAGE) {
                     // Require opt-in
-                    String wk = warKey(attackerSide ? kage.getUUID() : enemyUUID,
-                                       attackerSide ? enemyUUID : kage.getUUID());
-                    PendingAllies p = pendingAllies.computeIfAbsent(wk, k -> new PendingAllies());
-                    if (attackerSide) p.attackerSide.add(memberUUID); else p.defenderSide.add(memberUUID);
+                    if (invite(war, memberUUID, attackerSide)) {
+                        record(war, WarJournal.Event.of(WarJournal.Type.PENDING, war, memberUUID, attackerSide, 0L));
+                    }
                     if (member != null) {
                         member.sendSystemMessage(Component.literal("§eWar declared by your party's Kage. Use §a/war optin §eto participate after a 1h grace."));
                     }
                 } else {
                     // Auto-group non-Kage; ally grace starts on first login
-                    if (attackerSide) wa.attackerSide.add(memberUUID); else wa.defenderSide.add(memberUUID);
-                    startAllyGraceIfEligible(warKey(attackerSide ? kage.getUUID() : enemyUUID,
-                                                    attackerSide ? enemyUUID : kage.getUUID()), memberUUID);
+                    if (joinAlly(war, memberUUID, attackerSide)) {
+                        record(war, WarJournal.Event.of(WarJournal.Type.ALLY, war, memberUUID, attackerSide, 0L));
+                    }
                 }
             }
         } catch (Throwable ignored) {}
@@ -0,0 +1,89 @@
+package com.shinobi.shinobialliancemod;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of every active war.
+ *
+ * WarManager publishes a new WarView after each war change (copy-on-write; wars that
+ * did not change keep their WarState), so commands, the HUD and exporters read
+ * WarManager.view() without locks and never see half-applied state. Times are epoch
+ * millis; grace remaining is computed against the caller's clock.
+ */
+public final class WarView {
+    public static final WarView EMPTY = new WarView(0L, List.of());
+
+    /** AllyState.graceEndsAt of an ally whose grace starts on their first login. */
+    public static final long STARTS_ON_LOGIN = -1L;
+
+    private final long version;
+    private final List<WarState> wars;
+    private final Map<UUID, List<WarState>> byKage;
+
+    WarView(long version, List<WarState> wars) {
+        this.version = version;
+        this.wars = List.copyOf(wars);
+        Map<UUID, List<WarState>> index = new HashMap<>();
+        for (WarState war : this.wars) {
+            index.computeIfAbsent(war.attacker(), k -> new ArrayList<>()).add(war);
+            index.computeIfAbsent(war.defender(), k -> new ArrayList<>()).add(war);
+        }
+        index.replaceAll((k, v) -> List.copyOf(v));
+        this.byKage = Map.copyOf(index);
+    }
+
+    /** Increases with every published change. */
+    public long version() {
+        return version;
+    }
+
+    public List<WarState> wars() {
+        return wars;
+    }
+
+    public boolean isEmpty() {
+        return wars.isEmpty();
+    }
+
+    /** Wars the player fights as attacking or defending Kage. */
+    public List<WarState> warsForKage(UUID kage) {
+        return byKage.getOrDefault(kage, List.of());
+    }
+
+    /**
+     * One war. gracePeriodMillis is the full grace length, used for allies who have
+     * not logged in since joining.
+     */
+    public record WarState(
+        int id,
+        UUID attacker,
+        UUID defender,
+        long graceEndsAt,
+        long gracePeriodMillis,
+        boolean bypassApplied,
+        List<AllyState> allies,       // attacker side first
+        List<UUID> pendingAttacker,   // invited, not yet opted in
+        List<UUID> pendingDefender,
+        Set<UUID> bypassVotes
+    ) {
+        public long graceRemaining(long now) {
+            return Math.max(0L, graceEndsAt - now);
+        }
+
+        public long allyGraceRemaining(AllyState ally, long now) {
+            return ally.graceEndsAt() == STARTS_ON_LOGIN ? gracePeriodMillis : Math.max(0L, ally.graceEndsAt() - now);
+        }
+
+        public UUID opponentOf(UUID kage) {
+            return attacker.equals(kage) ? defender : attacker;
+        }
+    }
+
+    /** An ally of one side; graceEndsAt is STARTS_ON_LOGIN until their first login. */
+    public record AllyState(UUID uuid, boolean attackerSide, long graceEndsAt, boolean bypassApplied) {}
+}
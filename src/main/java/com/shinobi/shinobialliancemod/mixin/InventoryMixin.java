@@ -0,0 +1,52 @@
+package com.shinobi.shinobialliancemod.mixin;
+
+import com.shinobi.shinobialliancemod.OnboardingSessions;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.entity.player.Player;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * Tells OnboardingSessions when a player's inventory changes, so the village scroll
+ * check runs on change instead of every tick.
+ */
+@Mixin(Inventory.class)
+public abstract class InventoryMixin {
+    @Shadow @Final public Player player;
+
+    @Inject(method = "setItem", at = @At("TAIL"))
+    private void shinobi$afterSetItem(CallbackInfo ci) {
+        OnboardingSessions.markInventoryChanged(player);
+    }
+
+    @Inject(method = "removeItem(II)Lnet/minecraft/world/item/ItemStack;", at = @At("RETURN"))
+    private void shinobi$afterRemoveItem(CallbackInfoReturnable<?> cir) {
+        OnboardingSessions.markInventoryChanged(player);
+    }
+
+    @Inject(method = "removeItem(Lnet/minecraft/world/item/ItemStack;)V", at = @At("TAIL"))
+    private void shinobi$afterRemoveStack(CallbackInfo ci) {
+        OnboardingSessions.markInventoryChanged(player);
+    }
+
+    // /clear writes the item lists directly
+    @Inject(method = "clearOrCountMatchingItems", at = @At("RETURN"))
+    private void shinobi$afterClearMatching(CallbackInfoReturnable<Integer> cir) {
+        OnboardingSessions.markInventoryChanged(player);
+    }
+
+    @Inject(method = "removeItemNoUpdate", at = @At("RETURN"))
+    private void shinobi$afterRemoveItemNoUpdate(CallbackInfoReturnable<?> cir) {
+        OnboardingSessions.markInventoryChanged(player);
+    }
+
+    @Inject(method = {"setChanged", "clearContent", "dropAll"}, at = @At("TAIL"))
+    private void shinobi$afterBulkChange(CallbackInfo ci) {
+        OnboardingSessions.markInventoryChanged(player);
+    }
+}
@@ -0,0 +1,55 @@
+package com.shinobi.shinobialliancemod.mixin;
+
+import com.llamalad7.mixinextras.sugar.Share;
+import com.llamalad7.mixinextras.sugar.ref.LocalBooleanRef;
+import com.shinobi.shinobialliancemod.PlayerPointsManager;
+import net.minecraft.advancements.AdvancementHolder;
+import net.minecraft.advancements.AdvancementProgress;
+import net.minecraft.server.PlayerAdvancements;
+import net.minecraft.server.level.ServerPlayer;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * Hooks advancement award/revoke so Shinobi points are updated per advancement
+ * instead of rescanning every advancement on the server.
+ */
+@Mixin(PlayerAdvancements.class)
+public abstract class PlayerAdvancementsMixin {
+    @Shadow private ServerPlayer player;
+
+    @Shadow public abstract AdvancementProgress getOrStartProgress(AdvancementHolder advancement);
+
+    @Inject(method = "award", at = @At("HEAD"))
+    private void shinobi$beforeAward(AdvancementHolder advancement, String criterion, CallbackInfoReturnable<Boolean> cir,
+                                     @Share("wasDone") LocalBooleanRef wasDone) {
+        wasDone.set(getOrStartProgress(advancement).isDone());
+    }
+
+    @Inject(method = "award", at = @At("RETURN"))
+    private void shinobi$afterAward(AdvancementHolder advancement, String criterion, CallbackInfoReturnable<Boolean> cir,
+                                    @Share("wasDone") LocalBooleanRef wasDone) {
+        // Only count the transition from not-done to done
+        if (cir.getReturnValueZ() && !wasDone.get() && getOrStartProgress(advancement).isDone()) {
+            PlayerPointsManager.onAdvancementCompleted(player, advancement);
+        }
+    }
+
+    @Inject(method = "revoke", at = @At("HEAD"))
+    private void shinobi$beforeRevoke(AdvancementHolder advancement, String criterion, CallbackInfoReturnable<Boolean> cir,
+                                      @Share("wasDone") LocalBooleanRef wasDone) {
+        wasDone.set(getOrStartProgress(advancement).isDone());
+    }
+
+    @Inject(method = "revoke", at = @At("RETURN"))
+    private void shinobi$afterRevoke(AdvancementHolder advancement, String criterion, CallbackInfoReturnable<Boolean> cir,
+                                     @Share("wasDone") LocalBooleanRef wasDone) {
+        // Only count the transition from done to not-done
+        if (cir.getReturnValueZ() && wasDone.get() && !getOrStartProgress(advancement).isDone()) {
+            PlayerPointsManager.onAdvancementRevoked(player, advancement);
+        }
+    }
+}
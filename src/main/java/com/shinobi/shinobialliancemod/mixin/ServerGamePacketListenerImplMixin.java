@@ -0,0 +1,38 @@
+package com.shinobi.shinobialliancemod.mixin;
+
+import com.shinobi.shinobialliancemod.PlayerFreezeManager;
+import net.minecraft.network.protocol.game.ServerboundMoveVehiclePacket;
+import net.minecraft.network.protocol.game.ServerboundMovePlayerPacket;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.network.ServerGamePacketListenerImpl;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Drops movement from frozen players at the packet handler, before the packet is
+ * even handed to the server thread. Rotation-only packets still go through; a
+ * dropped position far from the lock triggers a (rate-limited) correcting teleport.
+ */
+@Mixin(ServerGamePacketListenerImpl.class)
+public abstract class ServerGamePacketListenerImplMixin {
+    @Shadow public ServerPlayer player;
+
+    @Inject(method = "handleMovePlayer", at = @At("HEAD"), cancellable = true)
+    private void shinobi$rejectFrozenMove(ServerboundMovePlayerPacket packet, CallbackInfo ci) {
+        if (packet.hasPosition() && PlayerFreezeManager.isFrozen(player)) {
+            ci.cancel();
+            // Pull the client back if something else moved it
+            PlayerFreezeManager.onRejectedMove(player, packet.getX(player.getX()), packet.getY(player.getY()), packet.getZ(player.getZ()));
+        }
+    }
+
+    @Inject(method = "handleMoveVehicle", at = @At("HEAD"), cancellable = true)
+    private void shinobi$rejectFrozenVehicleMove(ServerboundMoveVehiclePacket packet, CallbackInfo ci) {
+        if (PlayerFreezeManager.isFrozen(player)) {
+            ci.cancel();
+        }
+    }
+}
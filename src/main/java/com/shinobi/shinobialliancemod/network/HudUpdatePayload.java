@@ -1,38 +1,115 @@
 package com.shinobi.shinobialliancemod.network;
 
+import com.shinobi.shinobialliancemod.Rank;
+import com.shinobi.shinobialliancemod.Village;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.minecraft.resources.Identifier;
 
+/**
+ * HUD state update, delta-encoded.
+ *
+ * Wire format (VERSION 2): version byte, field mask byte, then only the fields whose
+ * bit is set, in bit order. Village is ordinal + 1 (0 = unassigned), rank is an
+ * ordinal, numbers are VarInts. A KEYFRAME carries every field and replaces the
+ * client's state; other updates apply onto the last state the client holds.
+ * Updates with an unknown version decode to an empty mask and are ignored.
+ */
 public record HudUpdatePayload(
-    String village,
-    String rank,
+    int mask,
+    int village,
+    int rank,
     int points,
     int claimed,
     int limit
 ) implements CustomPacketPayload {
-    
+
+    public static final int VERSION = 2;
+
+    public static final int VILLAGE = 1;
+    public static final int RANK = 1 << 1;
+    public static final int POINTS = 1 << 2;
+    public static final int CLAIMED = 1 << 3;
+    public static final int LIMIT = 1 << 4;
+    public static final int KEYFRAME = 1 << 7;
+    private static final int ALL_FIELDS = VILLAGE | RANK | POINTS | CLAIMED | LIMIT;
+
     public static final CustomPacketPayload.Type<HudUpdatePayload> TYPE =
         new CustomPacketPayload.Type<>(Identifier.parse("shinobialliancemod:hud_update"));
 
     public static final StreamCodec<FriendlyByteBuf, HudUpdatePayload> CODEC = StreamCodec.of(
         (buf, payload) -> {
-            buf.writeUtf(payload.village);
-            buf.writeUtf(payload.rank);
-            buf.writeInt(payload.points);
-            buf.writeInt(payload.claimed);
-            buf.writeInt(payload.limit);
+            buf.writeByte(VERSION);
+            buf.writeByte(payload.mask);
+            if (payload.has(VILLAGE)) buf.writeVarInt(payload.village);
+            if (payload.has(RANK)) buf.writeVarInt(payload.rank);
+            if (payload.has(POINTS)) buf.writeVarInt(payload.points);
+            if (payload.has(CLAIMED)) buf.writeVarInt(payload.claimed);
+            if (payload.has(LIMIT)) buf.writeVarInt(payload.limit);
         },
-        buf -> new HudUpdatePayload(
-            buf.readUtf(),
-            buf.readUtf(),
-            buf.readInt(),
-            buf.readInt(),
-            buf.readInt()
-        )
+        buf -> {
+            int version = buf.readUnsignedByte();
+            if (version != VERSION) {
+                buf.skipBytes(buf.readableBytes());
+                return new HudUpdatePayload(0, 0, 0, 0, 0, 0);
+            }
+            int mask = buf.readUnsignedByte();
+            return new HudUpdatePayload(
+                mask,
+                (mask & VILLAGE) != 0 ? buf.readVarInt() : 0,
+                (mask & RANK) != 0 ? buf.readVarInt() : 0,
+                (mask & POINTS) != 0 ? buf.readVarInt() : 0,
+                (mask & CLAIMED) != 0 ? buf.readVarInt() : 0,
+                (mask & LIMIT) != 0 ? buf.readVarInt() : 0
+            );
+        }
     );
 
+    /** Full state, sent first after the HUD is shown (join, reconnect, re-pin). */
+    public static HudUpdatePayload keyframe(Village village, Rank rank, int points, int claimed, int limit) {
+        return new HudUpdatePayload(KEYFRAME | ALL_FIELDS, villageOrdinal(village), rank.ordinal(), points, claimed, limit);
+    }
+
+    /** Only the fields that differ from previous; the mask is 0 when nothing changed. */
+    public static HudUpdatePayload delta(HudUpdatePayload previous, Village village, Rank rank, int points, int claimed, int limit) {
+        int villageOrdinal = villageOrdinal(village);
+        int mask = 0;
+        if (villageOrdinal != previous.village) mask |= VILLAGE;
+        if (rank.ordinal() != previous.rank) mask |= RANK;
+        if (points != previous.points) mask |= POINTS;
+        if (claimed != previous.claimed) mask |= CLAIMED;
+        if (limit != previous.limit) mask |= LIMIT;
+        return new HudUpdatePayload(mask, villageOrdinal, rank.ordinal(), points, claimed, limit);
+    }
+
+    private static int villageOrdinal(Village village) {
+        return village != null ? village.ordinal() + 1 : 0;
+    }
+
+    public boolean has(int field) {
+        return (mask & field) != 0;
+    }
+
+    public boolean isKeyframe() {
+        return has(KEYFRAME);
+    }
+
+    public boolean isEmpty() {
+        return (mask & ALL_FIELDS) == 0;
+    }
+
+    /** The village this update names, or null for unassigned / out of range. */
+    public Village villageValue() {
+        Village[] values = Village.values();
+        return village > 0 && village <= values.length ? values[village - 1] : null;
+    }
+
+    public Rank rankValue() {
+        Rank[] values = Rank.values();
+        return rank >= 0 && rank < values.length ? values[rank] : Rank.GENIN;
+    }
+
     @Override
     public Type<? extends CustomPacketPayload> type() {
         return TYPE;